@@ -0,0 +1,99 @@
+package com.stuyfission.fissionlib.command;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ActionMailbox hands actions from command threads to the OpMode loop thread, so hardware is only
+ * ever touched from the loop. Any number of threads may {@link #post(Runnable)}; the loop thread
+ * runs everything posted with {@link #drain()} once per cycle.
+ *
+ * The mailbox is a bounded ring of preallocated slots, each tagged with a sequence number that
+ * tells producers and the consumer whose turn it is. Posting claims a slot with one CAS and never
+ * locks or allocates; posting to a full mailbox fails instead of waiting.
+ */
+public class ActionMailbox {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final int mask;
+    private final Runnable[] actions;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private long head;
+
+    public ActionMailbox() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity actions that can wait between two drains, rounded up to a power of two
+     */
+    public ActionMailbox(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.actions = new Runnable[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Queues an action for the loop thread. Safe to call from any thread.
+     *
+     * @return false if the mailbox was full
+     */
+    public boolean post(Runnable action) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    actions[slot] = action;
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            // another producer claimed the slot first, retry with the new tail
+        }
+    }
+
+    /**
+     * Runs the posted actions in order, call once per loop from the loop thread only. Actions
+     * posted while draining wait for the next drain if the mailbox wrapped around.
+     *
+     * @return number of actions run
+     */
+    public int drain() {
+        int count = 0;
+        while (count < capacity) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) {
+                break;
+            }
+            Runnable action = actions[slot];
+            actions[slot] = null;
+            sequences.lazySet(slot, head + capacity);
+            head++;
+            count++;
+            action.run();
+        }
+        return count;
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * @return number of posts that failed because the mailbox was full
+     */
+    public long getRejected() { return rejected.get(); }
+
+}
@@ -1,21 +1,116 @@
 package com.stuyfission.fissionlib.command;
 
+import com.stuyfission.fissionlib.log.FlightRecorder;
+
 import java.util.ArrayList;
 
 public class AutoCommandMachine {
 
+    private static final Precomputed<?>[] NO_REQUIREMENTS = new Precomputed<?>[0];
+
     private ArrayList<CommandSequence> commandSequences = new ArrayList<>();
+    private ArrayList<Precomputed<?>[]> requirements = new ArrayList<>();
+    private int lookahead = 1;
     private int currentCommandIndex;
     private boolean hasCompleted = false;
+    private FlightRecorder flightRecorder;
+    private ActionMailbox mailbox;
+    private MechanismArbiter arbiter = new MechanismArbiter();
 
     public AutoCommandMachine() { this.currentCommandIndex = 0; }
 
     public AutoCommandMachine addCommandSequence(CommandSequence commandSequence) {
+        return addCommandSequence(commandSequence, NO_REQUIREMENTS);
+    }
+
+    /**
+     * Adds a sequence that is only triggered once the given values are ready. They are generated in
+     * the background while the sequences before it run.
+     *
+     * @param commandSequence sequence to add
+     * @param requirements values, such as trajectories, the sequence uses
+     */
+    public AutoCommandMachine addCommandSequence(CommandSequence commandSequence, Precomputed<?>... requirements) {
+        if (mailbox != null) {
+            commandSequence.setMailbox(mailbox);
+        }
         commandSequences.add(commandSequence);
+        this.requirements.add(requirements);
+        return this;
+    }
+
+    /**
+     * @param lookahead number of upcoming sequences whose values are generated ahead of time,
+     *                  1 by default
+     */
+    public AutoCommandMachine setLookahead(int lookahead) {
+        this.lookahead = lookahead;
+        return this;
+    }
+
+    /**
+     * Stamps records of the flight recorder with the index of the last triggered sequence
+     */
+    public AutoCommandMachine setFlightRecorder(FlightRecorder flightRecorder) {
+        this.flightRecorder = flightRecorder;
+        return this;
+    }
+
+    /**
+     * Has the commands of every threaded sequence run on the loop thread, drained by
+     * {@link #update()}. See {@link CommandSequence#setMailbox(ActionMailbox)}.
+     */
+    public AutoCommandMachine setMailbox(ActionMailbox mailbox) {
+        this.mailbox = mailbox;
+        for (int i = 0; i < commandSequences.size(); i++) {
+            commandSequences.get(i).setMailbox(mailbox);
+        }
+        return this;
+    }
+
+    /**
+     * Shares mechanism ownership with other machines, such as a teleop {@link CommandMachine}
+     */
+    public AutoCommandMachine setArbiter(MechanismArbiter arbiter) {
+        this.arbiter = arbiter;
         return this;
     }
 
-    public AutoCommandMachine build() { return this; }
+    public MechanismArbiter getArbiter() { return arbiter; }
+
+    /**
+     * Starts generating the values of the first sequences in the background, init does not wait for
+     * them
+     */
+    public AutoCommandMachine build() {
+        precompute(0, lookahead);
+        return this;
+    }
+
+    private void precompute(int from, int count) {
+        for (int i = from; i < from + count && i < requirements.size(); i++) {
+            for (Precomputed<?> value : requirements.get(i)) {
+                value.start();
+            }
+        }
+    }
+
+    /**
+     * @return whether every value the sequence needs is ready, starting any that were not
+     * @throws IllegalStateException if generating one of the values failed, rather than waiting
+     *         for it forever or starting the sequence without it
+     */
+    private boolean requirementsReady(int index) {
+        boolean ready = true;
+        for (Precomputed<?> value : requirements.get(index)) {
+            value.start();
+            if (value.isFailed()) {
+                throw new IllegalStateException("could not precompute " + value.getKey(), value.getFailure());
+            }
+            ready &= value.isReady();
+        }
+        return ready;
+    }
 
     public int getCurrentCommandIndex() { return currentCommandIndex; }
 
@@ -23,11 +118,32 @@ public class AutoCommandMachine {
 
     public void reset() { currentCommandIndex = 0; }
 
+    /**
+     * Runs the actions posted to the mailbox and advances every cooperative sequence owned by this
+     * machine, see {@link CommandSequence#update()}
+     */
+    public void update() {
+        if (mailbox != null) {
+            mailbox.drain();
+        }
+
+        for (int i = 0; i < commandSequences.size(); i++) {
+            commandSequences.get(i).update();
+        }
+    }
+
     public void run(boolean driveIsBusy) {
+        update();
+
         CommandSequence currentCommand = commandSequences.get(currentCommandIndex);
 
-        if (currentCommand.hasCompleted && !driveIsBusy) {
+        if (currentCommand.hasCompleted && !driveIsBusy && requirementsReady(currentCommandIndex)
+                && arbiter.acquire(currentCommand)) {
             currentCommand.trigger();
+            if (flightRecorder != null) {
+                flightRecorder.setCommandIndex(currentCommandIndex);
+            }
+            precompute(currentCommandIndex + 1, lookahead);
             if (currentCommandIndex == commandSequences.size()-1) {
                 currentCommandIndex = 0;
                 hasCompleted = true;
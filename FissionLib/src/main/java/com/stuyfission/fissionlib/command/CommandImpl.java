@@ -3,22 +3,71 @@ package com.stuyfission.fissionlib.command;
 public class CommandImpl implements Command {
 
     private Command command;
+    private Runnable delivery;
+    private ActionMailbox mailbox;
+    private boolean posted;
+    private volatile boolean cancelled;
 
-    protected boolean completed;
+    protected volatile boolean completed;
 
     public CommandImpl() { }
 
     public CommandImpl(Command command) {
         this.command = command;
+        this.delivery = () -> {
+            if (!cancelled) {
+                command.run();
+            }
+            completed = true;
+        };
         this.completed = false;
     }
 
+    /**
+     * Runs the command on the thread draining the mailbox instead of the thread running the
+     * sequence. The command completes once the mailbox has run it.
+     *
+     * @param mailbox mailbox drained by the loop thread, null to run the command directly
+     */
+    public void setMailbox(ActionMailbox mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    /**
+     * Starts the command. Commands that finish instantly should set completed here, otherwise
+     * completion is reported from {@link #update()}.
+     */
     @Override
     public void run() {
+        if (mailbox != null && delivery != null) {
+            this.completed = false;
+            this.cancelled = false;
+            posted = mailbox.post(delivery);
+            return;
+        }
         command.run();
         this.completed = true;
     }
 
-    public void update() { }
+    /**
+     * Polled by the owning {@link CommandSequence} once per step while this command is active.
+     * Must never block.
+     */
+    public void update() {
+        if (mailbox != null && delivery != null && !posted && !completed) {
+            posted = mailbox.post(delivery);
+        }
+    }
+
+    /**
+     * Stops a command that has started but not completed, releasing anything it holds. Called by
+     * groups when a command loses a race or its deadline passes.
+     */
+    public void cancel() {
+        // a command still waiting in the mailbox is skipped instead of run
+        cancelled = true;
+    }
+
+    public boolean isCompleted() { return completed; }
     
 }
@@ -1,29 +1,104 @@
 package com.stuyfission.fissionlib.command;
 
 import com.qualcomm.robotcore.hardware.Gamepad;
+import com.stuyfission.fissionlib.input.GamepadSnapshot;
 import com.stuyfission.fissionlib.input.GamepadStatic;
 
 import java.util.ArrayList;
 
 public class CommandMachine {
 
+    /**
+     * SEQUENTIAL waits for the trigger of one sequence at a time and cycles through them in order.
+     * REACTIVE fires every sequence bound to an input as soon as that input is pressed.
+     */
+    public enum DispatchPolicy {
+        SEQUENTIAL,
+        REACTIVE,
+    }
+
+    private static final CommandSequenceTrigger[] NO_BINDINGS = new CommandSequenceTrigger[0];
+
     private ArrayList<CommandSequenceTrigger> commandSequences = new ArrayList<>();
     private int currentCommandIndex;
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.SEQUENTIAL;
+    private ActionMailbox mailbox;
+    private MechanismArbiter arbiter = new MechanismArbiter();
+
+    /**
+     * Sequences indexed by the ordinal of their trigger input, built lazily for REACTIVE dispatch
+     */
+    private CommandSequenceTrigger[][] bindings;
+    private final GamepadSnapshot snapshot = new GamepadSnapshot();
+
+    /**
+     * Cooperative sequences that are currently running and need to be advanced
+     */
+    private final ArrayList<CommandSequenceTrigger> activeSequences = new ArrayList<>();
 
     public CommandMachine() {
         this.currentCommandIndex = 0;
     }
 
     public CommandMachine addCommandSequence(CommandSequence commandSequence, GamepadStatic.Input triggerCondition) {
+        if (mailbox != null) {
+            commandSequence.setMailbox(mailbox);
+        }
         CommandSequenceTrigger commandSequenceTrigger = new CommandSequenceTrigger(commandSequence, triggerCondition);
         commandSequences.add(commandSequenceTrigger);
+        bindings = null;
+        return this;
+    }
+
+    public CommandMachine setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+        return this;
+    }
+
+    public DispatchPolicy getDispatchPolicy() { return dispatchPolicy; }
+
+    /**
+     * Has the commands of every threaded sequence run on the loop thread, drained by
+     * {@link #update()}. See {@link CommandSequence#setMailbox(ActionMailbox)}.
+     */
+    public CommandMachine setMailbox(ActionMailbox mailbox) {
+        this.mailbox = mailbox;
+        for (CommandSequenceTrigger commandSequence : commandSequences) {
+            commandSequence.getCommandSequence().setMailbox(mailbox);
+        }
+        return this;
+    }
+
+    /**
+     * Shares mechanism ownership with other machines, each machine has its own arbiter by default
+     */
+    public CommandMachine setArbiter(MechanismArbiter arbiter) {
+        this.arbiter = arbiter;
         return this;
     }
 
+    public MechanismArbiter getArbiter() { return arbiter; }
+
     public CommandMachine build() {
+        buildBindings();
         return this;
     }
 
+    private void buildBindings() {
+        GamepadStatic.Input[] inputs = GamepadStatic.Input.values();
+        bindings = new CommandSequenceTrigger[inputs.length][];
+
+        for (GamepadStatic.Input input : inputs) {
+            ArrayList<CommandSequenceTrigger> bound = new ArrayList<>();
+            for (CommandSequenceTrigger commandSequence : commandSequences) {
+                if (commandSequence.triggerCondition == input && input != GamepadStatic.Input.NONE) {
+                    bound.add(commandSequence);
+                }
+            }
+            bindings[input.ordinal()] = bound.isEmpty() ? NO_BINDINGS : bound.toArray(NO_BINDINGS);
+        }
+    }
+
     /**
      *
      * @return index of the current command waiting for gamepad input
@@ -34,7 +109,7 @@ public class CommandMachine {
 
     public void next() {
         CommandSequenceTrigger currentCommand = commandSequences.get(currentCommandIndex);
-        currentCommand.trigger();
+        fire(currentCommand);
         skip();
     }
 
@@ -50,11 +125,88 @@ public class CommandMachine {
         currentCommandIndex = 0;
     }
 
+    /**
+     * Starts the sequence if it is idle and can own the mechanisms it requires
+     */
+    private void fire(CommandSequenceTrigger commandSequence) {
+        CommandSequence sequence = commandSequence.getCommandSequence();
+        if (!sequence.hasCompleted || !arbiter.acquire(sequence)) {
+            return;
+        }
+        commandSequence.trigger();
+
+        if (sequence.getMode() == CommandSequence.Mode.COOPERATIVE && !sequence.hasCompleted
+                && !activeSequences.contains(commandSequence)) {
+            activeSequences.add(commandSequence);
+        }
+    }
+
+    /**
+     * Runs the actions posted to the mailbox and advances the cooperative sequences this machine
+     * has started, see {@link CommandSequence#update()}. Only running sequences are visited.
+     */
+    public void update() {
+        if (mailbox != null) {
+            mailbox.drain();
+        }
+
+        for (int i = activeSequences.size() - 1; i >= 0; i--) {
+            CommandSequenceTrigger commandSequence = activeSequences.get(i);
+            commandSequence.update();
+
+            if (commandSequence.getCommandSequence().hasCompleted) {
+                int last = activeSequences.size() - 1;
+                activeSequences.set(i, activeSequences.get(last));
+                activeSequences.remove(last);
+            }
+        }
+    }
+
     public void run(Gamepad gamepad) {
+        if (dispatchPolicy == DispatchPolicy.REACTIVE) {
+            snapshot.update(gamepad);
+            run(snapshot);
+            return;
+        }
+
+        update();
+
         CommandSequenceTrigger currentCommand = commandSequences.get(currentCommandIndex);
 
         if (GamepadStatic.isButtonPressed(gamepad, currentCommand.triggerCondition)) {
             next();
         }
     }
+
+    /**
+     * Edge-triggered version of {@link #run(Gamepad)}: sequences only fire on the loop their
+     * button goes down, not on every loop it is held.
+     *
+     * With REACTIVE dispatch only the bindings of inputs pressed this loop are visited, so the cost
+     * does not grow with the number of registered sequences.
+     *
+     * @param gamepad snapshot updated once this loop
+     */
+    public void run(GamepadSnapshot gamepad) {
+        update();
+
+        if (dispatchPolicy == DispatchPolicy.REACTIVE) {
+            if (bindings == null) {
+                buildBindings();
+            }
+            for (int pressed = gamepad.getPressedMask(); pressed != 0; pressed &= pressed - 1) {
+                CommandSequenceTrigger[] bound = bindings[Integer.numberOfTrailingZeros(pressed)];
+                for (CommandSequenceTrigger commandSequence : bound) {
+                    fire(commandSequence);
+                }
+            }
+            return;
+        }
+
+        CommandSequenceTrigger currentCommand = commandSequences.get(currentCommandIndex);
+
+        if (gamepad.isPressed(currentCommand.triggerCondition)) {
+            next();
+        }
+    }
 }
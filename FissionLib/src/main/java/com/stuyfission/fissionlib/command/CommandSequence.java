@@ -1,13 +1,39 @@
 package com.stuyfission.fissionlib.command;
 
+import com.stuyfission.fissionlib.util.Mechanism;
+
 import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
 
 public class CommandSequence {
 
+    private static final long THREADED_POLL_NANOS = 1_000_000;
+
+    /**
+     * COOPERATIVE creates no threads; the sequence is advanced by calling {@link #update()} from
+     * the OpMode loop, and is the mode to use from loop code. THREADED, the default for existing
+     * code, runs every trigger on its own thread, which checks the active command every
+     * millisecond and parks in between.
+     */
+    public enum Mode {
+        THREADED,
+        COOPERATIVE,
+    }
+
     private ArrayList<CommandImpl> commands = new ArrayList<>();
     private Runnable commandRunnable;
     private Thread commandThread;
-    public boolean hasCompleted;
+    private Mode mode = Mode.THREADED;
+    private int commandIndex;
+    private boolean commandStarted;
+    private ActionMailbox mailbox;
+    private volatile boolean cancelled;
+    private Mechanism[] requirements = new Mechanism[0];
+    private int priority;
+    private MechanismArbiter arbiter;
+    private MechanismArbiter maskArbiter;
+    private long requirementMask;
+    public volatile boolean hasCompleted;
 
     public CommandSequence() {
         hasCompleted = true;
@@ -19,30 +45,128 @@ public class CommandSequence {
         return this;
     }
 
+    /**
+     * Adds a command object, such as a {@link WaitCommand}, {@link ParallelCommand} or
+     * {@link SequentialCommand}
+     */
+    public CommandSequence addCommand(CommandImpl command) {
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * Runs the commands at the same time and continues once all of them have completed
+     */
+    public CommandSequence addParallelCommands(CommandImpl... commands) {
+        return addCommand(new ParallelCommand(ParallelCommand.Type.ALL, commands));
+    }
+
+    /**
+     * Runs the commands at the same time and continues as soon as one of them completes, cancelling
+     * the others
+     */
+    public CommandSequence addRaceCommands(CommandImpl... commands) {
+        return addCommand(new ParallelCommand(ParallelCommand.Type.RACE, commands));
+    }
+
+    /**
+     * Runs the commands at the same time and continues once the deadline command completes,
+     * cancelling the others
+     */
+    public CommandSequence addDeadlineCommands(CommandImpl deadline, CommandImpl... commands) {
+        CommandImpl[] all = new CommandImpl[commands.length + 1];
+        all[0] = deadline;
+        System.arraycopy(commands, 0, all, 1, commands.length);
+        return addCommand(new ParallelCommand(ParallelCommand.Type.DEADLINE, all));
+    }
+
     public CommandSequence addWaitCommand(double seconds) {
         WaitCommand waitCommand = new WaitCommand(seconds);
         commands.add(waitCommand);
         return this;
     }
 
+    public CommandSequence setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public CommandSequence cooperative() { return setMode(Mode.COOPERATIVE); }
+
+    public Mode getMode() { return mode; }
+
+    /**
+     * In THREADED mode, posts every {@link Command} to the mailbox for the loop thread to run
+     * instead of running it on the sequence thread. Waits and other command objects still run on
+     * the sequence thread.
+     *
+     * @param mailbox mailbox drained once per loop, null to run commands on the sequence thread
+     */
+    public CommandSequence setMailbox(ActionMailbox mailbox) {
+        this.mailbox = mailbox;
+        return this;
+    }
+
+    /**
+     * Declares the mechanisms this sequence drives. A machine only starts the sequence once it owns
+     * all of them, see {@link MechanismArbiter}.
+     */
+    public CommandSequence requires(Mechanism... mechanisms) {
+        this.requirements = mechanisms;
+        this.maskArbiter = null;
+        return this;
+    }
+
+    /**
+     * @param priority sequences preempt running sequences of lower priority that require the same
+     *                 mechanisms, 0 by default
+     */
+    public CommandSequence setPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public int getPriority() { return priority; }
+
+    public Mechanism[] getRequirements() { return requirements; }
+
+    long getRequirementMask(MechanismArbiter arbiter) {
+        if (maskArbiter != arbiter) {
+            requirementMask = arbiter.maskOf(requirements);
+            maskArbiter = arbiter;
+        }
+        return requirementMask;
+    }
+
+    void setArbiter(MechanismArbiter arbiter) { this.arbiter = arbiter; }
+
     public CommandSequence build() {
         commandRunnable = () -> {
-            for (CommandImpl command : commands) {
-                command.run();
-                while (!command.completed) { }
+            while (!step()) {
+                LockSupport.parkNanos(this, THREADED_POLL_NANOS);
             }
-            hasCompleted = true;
         };
 
-        commandThread = new Thread(commandRunnable);
-
         return this;
     }
 
     public void run() {
         hasCompleted = false;
-        commandThread = new Thread(commandRunnable);
-        commandThread.start();
+        cancelled = false;
+        commandIndex = 0;
+        commandStarted = false;
+
+        ActionMailbox commandMailbox = mode == Mode.THREADED ? mailbox : null;
+        for (int i = 0; i < commands.size(); i++) {
+            commands.get(i).setMailbox(commandMailbox);
+        }
+
+        if (mode == Mode.COOPERATIVE) {
+            step();
+        } else {
+            commandThread = new Thread(commandRunnable);
+            commandThread.start();
+        }
     }
 
     public void trigger() {
@@ -50,5 +174,71 @@ public class CommandSequence {
             this.run();
         }
     }
-    
+
+    /**
+     * Stops the sequence, cancelling its active command, without starting another command. A
+     * cooperative sequence completes and releases its mechanisms immediately. A threaded one is
+     * woken and completes as soon as its thread notices; it keeps its mechanisms until then, since
+     * the command it is running may still write to them. Call from the loop thread.
+     */
+    public void cancel() {
+        if (hasCompleted) {
+            return;
+        }
+        cancelled = true;
+        if (mode == Mode.COOPERATIVE) {
+            step();
+        } else {
+            LockSupport.unpark(commandThread);
+        }
+        if (hasCompleted && arbiter != null) {
+            arbiter.release(this);
+        }
+    }
+
+    /**
+     * Advances a cooperative sequence. Call once per OpMode loop; does nothing in THREADED mode or
+     * when the sequence is idle.
+     */
+    public void update() {
+        if (mode == Mode.COOPERATIVE && !hasCompleted) {
+            step();
+        }
+    }
+
+    /**
+     * Starts or polls the active command, moving on to the next command for as long as commands
+     * complete without waiting.
+     *
+     * @return whether the sequence has finished
+     */
+    private boolean step() {
+        while (commandIndex < commands.size()) {
+            CommandImpl command = commands.get(commandIndex);
+            if (cancelled) {
+                if (commandStarted) {
+                    command.cancel();
+                    commandStarted = false;
+                }
+                break;
+            }
+
+            if (commandStarted) {
+                command.update();
+            } else {
+                commandStarted = true;
+                command.run();
+            }
+
+            if (!command.completed) {
+                return false;
+            }
+            commandIndex++;
+            commandStarted = false;
+        }
+
+        hasCompleted = true;
+        return true;
+    }
+
 }
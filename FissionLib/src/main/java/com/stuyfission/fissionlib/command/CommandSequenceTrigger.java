@@ -23,4 +23,10 @@ public class CommandSequenceTrigger {
         }
     }
 
+    public CommandSequence getCommandSequence() { return commandSequence; }
+
+    public void update() {
+        commandSequence.update();
+    }
+
 }
@@ -0,0 +1,143 @@
+package com.stuyfission.fissionlib.command;
+
+import com.stuyfission.fissionlib.util.Mechanism;
+
+import java.util.IdentityHashMap;
+
+/**
+ * MechanismArbiter gives each {@link Mechanism} at most one owning {@link CommandSequence} at a
+ * time. A sequence that requires a mechanism owned by a lower priority sequence preempts it,
+ * cancelling the owner; otherwise it is not started. A cancelled threaded sequence owns its
+ * mechanisms until its thread finishes.
+ *
+ * Each mechanism gets one bit, so checking a sequence against every owner is a single mask test.
+ * Use from the loop thread only. Share one arbiter between machines that drive the same mechanisms.
+ */
+public class MechanismArbiter {
+
+    private static final int MAX_MECHANISMS = 64;
+
+    private final IdentityHashMap<Mechanism, Integer> bits = new IdentityHashMap<>();
+    private final Mechanism[] mechanisms = new Mechanism[MAX_MECHANISMS];
+    private final CommandSequence[] owners = new CommandSequence[MAX_MECHANISMS];
+    private long owned;
+
+    /**
+     * @return mask with the bit of every given mechanism set, assigning bits to new mechanisms
+     */
+    public long maskOf(Mechanism... required) {
+        long mask = 0;
+        for (Mechanism mechanism : required) {
+            Integer bit = bits.get(mechanism);
+            if (bit == null) {
+                if (bits.size() == MAX_MECHANISMS) {
+                    throw new IllegalStateException("at most " + MAX_MECHANISMS + " mechanisms can be required");
+                }
+                bit = bits.size();
+                bits.put(mechanism, bit);
+                mechanisms[bit] = mechanism;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Claims every mechanism the sequence requires, cancelling lower priority owners. Never waits:
+     * while a cancelled threaded owner's thread is still finishing, the sequence is not started and
+     * should be retried on a later loop.
+     *
+     * @return whether the sequence now owns its requirements and may start
+     */
+    public boolean acquire(CommandSequence sequence) {
+        long mask = sequence.getRequirementMask(this);
+        long conflicts = collect(mask & owned) & ~ownedBy(sequence, mask);
+
+        for (long pending = conflicts; pending != 0; pending &= pending - 1) {
+            CommandSequence owner = owners[Long.numberOfTrailingZeros(pending)];
+            if (owner.getPriority() >= sequence.getPriority()) {
+                return false;
+            }
+        }
+
+        // a threaded owner keeps its bits until its thread notices, collected on a later loop
+        for (long pending = conflicts; pending != 0; pending &= owned) {
+            int bit = Long.numberOfTrailingZeros(pending);
+            pending &= pending - 1;
+            owners[bit].cancel();
+        }
+        if (collect(conflicts & owned) != 0) {
+            return false;
+        }
+
+        for (long claim = mask; claim != 0; claim &= claim - 1) {
+            owners[Long.numberOfTrailingZeros(claim)] = sequence;
+        }
+        owned |= mask;
+        sequence.setArbiter(this);
+        return true;
+    }
+
+    /**
+     * Frees every mechanism owned by the sequence
+     */
+    public void release(CommandSequence sequence) {
+        for (long bits = owned; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            if (owners[bit] == sequence) {
+                owners[bit] = null;
+                owned &= ~(1L << bit);
+            }
+        }
+    }
+
+    /**
+     * Frees the bits whose owner has completed since it acquired them
+     *
+     * @return the bits of the mask still owned by running sequences
+     */
+    private long collect(long mask) {
+        // releasing an owner frees all of its bits, so re-read owned before every lookup
+        for (long bits = mask & owned; bits != 0; bits &= owned) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            if (owners[bit].hasCompleted) {
+                release(owners[bit]);
+            }
+        }
+        return mask & owned;
+    }
+
+    private long ownedBy(CommandSequence sequence, long mask) {
+        long result = 0;
+        for (long bits = mask & owned; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            if (owners[bit] == sequence) {
+                result |= 1L << bit;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return running sequence that owns the mechanism, null if it is free
+     */
+    public CommandSequence getOwner(Mechanism mechanism) {
+        Integer bit = bits.get(mechanism);
+        if (bit == null) {
+            return null;
+        }
+        CommandSequence owner = owners[bit];
+        return owner == null || owner.hasCompleted ? null : owner;
+    }
+
+    public boolean isOwner(Mechanism mechanism, CommandSequence sequence) {
+        return sequence != null && getOwner(mechanism) == sequence;
+    }
+
+    /**
+     * @return mechanism assigned to a bit of the masks, null if the bit is unused
+     */
+    public Mechanism getMechanism(int bit) { return mechanisms[bit]; }
+
+}
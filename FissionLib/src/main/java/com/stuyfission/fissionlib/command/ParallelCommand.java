@@ -0,0 +1,99 @@
+package com.stuyfission.fissionlib.command;
+
+/**
+ * Runs several commands at the same time inside a {@link CommandSequence}, without extra threads:
+ * every child is started together and polled from {@link #update()}.
+ *
+ * ALL completes once every child has completed. RACE completes as soon as any child completes and
+ * cancels the rest. DEADLINE completes when the first child completes and cancels the rest.
+ */
+public class ParallelCommand extends CommandImpl {
+
+    public enum Type {
+        ALL,
+        RACE,
+        DEADLINE,
+    }
+
+    private final Type type;
+    private final CommandImpl[] commands;
+    private final boolean[] running;
+
+    public ParallelCommand(Type type, CommandImpl... commands) {
+        this.type = type;
+        this.commands = commands;
+        this.running = new boolean[commands.length];
+        super.completed = false;
+    }
+
+    public Type getType() { return type; }
+
+    @Override
+    public void run() {
+        super.completed = false;
+        for (int i = 0; i < commands.length; i++) {
+            running[i] = true;
+            commands[i].run();
+        }
+        checkCompleted();
+    }
+
+    @Override
+    public void update() {
+        if (super.completed) {
+            return;
+        }
+        for (int i = 0; i < commands.length; i++) {
+            if (running[i]) {
+                commands[i].update();
+            }
+        }
+        checkCompleted();
+    }
+
+    private void checkCompleted() {
+        boolean anyRunning = false;
+        boolean anyFinished = false;
+        for (int i = 0; i < commands.length; i++) {
+            if (running[i] && commands[i].completed) {
+                running[i] = false;
+                anyFinished = true;
+            }
+            anyRunning |= running[i];
+        }
+
+        switch (type) {
+            case RACE:
+                super.completed = anyFinished || !anyRunning;
+                break;
+            case DEADLINE:
+                super.completed = commands.length == 0 || !running[0];
+                break;
+            default:
+                super.completed = !anyRunning;
+                break;
+        }
+
+        if (super.completed && anyRunning) {
+            cancel();
+        }
+    }
+
+    @Override
+    public void setMailbox(ActionMailbox mailbox) {
+        for (CommandImpl command : commands) {
+            command.setMailbox(mailbox);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        for (int i = 0; i < commands.length; i++) {
+            if (running[i]) {
+                running[i] = false;
+                commands[i].cancel();
+            }
+        }
+    }
+
+}
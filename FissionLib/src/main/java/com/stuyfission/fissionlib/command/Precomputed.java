@@ -0,0 +1,127 @@
+package com.stuyfission.fissionlib.command;
+
+import com.stuyfission.fissionlib.util.BinaryCache;
+import com.stuyfission.fissionlib.util.Codec;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A value, such as a trajectory, that is generated in the background before it is needed. Created
+ * by a {@link Precomputer}.
+ *
+ * When the precomputer has a cache and the value a codec, the value is loaded from disk if it was
+ * generated before, and stored after it is generated.
+ */
+public class Precomputed<T> {
+
+    private final String key;
+    private final Supplier<T> generator;
+    private final Codec<T> codec;
+    private final BinaryCache cache;
+    private final Executor executor;
+
+    private volatile CompletableFuture<T> future;
+    private volatile boolean loaded;
+
+    Precomputed(String key, Supplier<T> generator, Codec<T> codec, BinaryCache cache, Executor executor) {
+        this.key = key;
+        this.generator = generator;
+        this.codec = codec;
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    public String getKey() { return key; }
+
+    /**
+     * Starts loading or generating the value in the background, does nothing if already started
+     */
+    public synchronized Precomputed<T> start() {
+        if (future == null) {
+            future = CompletableFuture.supplyAsync(this::compute, executor);
+        }
+        return this;
+    }
+
+    private T compute() {
+        if (cache != null && codec != null) {
+            T cached = cache.load(key, codec);
+            if (cached != null) {
+                loaded = true;
+                return cached;
+            }
+        }
+
+        T value = generator.get();
+        if (cache != null && codec != null) {
+            cache.store(key, codec, value);
+        }
+        return value;
+    }
+
+    public boolean isStarted() { return future != null; }
+
+    /**
+     * @return whether {@link #get()} would return the value without waiting, false if generating
+     *         it failed
+     */
+    public boolean isReady() {
+        CompletableFuture<T> f = future;
+        return f != null && f.isDone() && !f.isCompletedExceptionally();
+    }
+
+    /**
+     * @return whether the generator threw, in which case {@link #get()} throws too
+     */
+    public boolean isFailed() {
+        CompletableFuture<T> f = future;
+        return f != null && f.isCompletedExceptionally();
+    }
+
+    /**
+     * @return what the generator threw, null if it has not failed
+     */
+    public Throwable getFailure() {
+        CompletableFuture<T> f = future;
+        if (f == null || !f.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            f.join();
+        } catch (CompletionException e) {
+            return e.getCause();
+        } catch (CancellationException e) {
+            return e;
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the value came from the disk cache rather than the generator
+     */
+    public boolean isLoaded() { return loaded; }
+
+    /**
+     * Returns the value, generating it on the calling thread if it was never started and waiting
+     * for it if it is still being generated. Check {@link #isReady()} first to avoid blocking.
+     *
+     * @throws CompletionException if generating the value in the background failed
+     */
+    public T get() {
+        CompletableFuture<T> f = future;
+        if (f == null) {
+            synchronized (this) {
+                if (future == null) {
+                    future = CompletableFuture.completedFuture(compute());
+                }
+                f = future;
+            }
+        }
+        return f.join();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.stuyfission.fissionlib.command;
+
+import com.stuyfission.fissionlib.util.BinaryCache;
+import com.stuyfission.fissionlib.util.Codec;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Precomputer generates expensive values, such as Road Runner trajectories, on a background thread
+ * instead of during init or between autonomous segments.
+ *
+ * <pre>
+ * Precomputer precomputer = new Precomputer(new BinaryCache());
+ * Precomputed&lt;double[]&gt; toBackdrop = precomputer.add("toBackdrop-v2", () -&gt; sampleTrajectory(...), Codec.DOUBLES);
+ *
+ * new AutoCommandMachine()
+ *         .addCommandSequence(scorePreload)
+ *         .addCommandSequence(driveToBackdrop, toBackdrop)
+ *         .build();
+ * </pre>
+ *
+ * Values are generated one at a time, in the order they are started.
+ */
+public class Precomputer {
+
+    private final BinaryCache cache;
+    private final ExecutorService executor;
+    private final ArrayList<Precomputed<?>> values = new ArrayList<>();
+
+    /**
+     * Precomputer without a disk cache
+     */
+    public Precomputer() {
+        this(null);
+    }
+
+    /**
+     * @param cache cache values with a codec are loaded from and stored to, null for none
+     */
+    public Precomputer(BinaryCache cache) {
+        this.cache = cache;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Precomputer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a value that is only generated in memory
+     */
+    public <T> Precomputed<T> add(String key, Supplier<T> generator) {
+        return add(key, generator, null);
+    }
+
+    /**
+     * Registers a value. Nothing is generated until the value is started, either directly or by the
+     * {@link AutoCommandMachine} that needs it.
+     *
+     * @param key name of the value in the disk cache, change it when the generator's inputs change
+     * @param generator builds the value, runs on the background thread
+     * @param codec binary form of the value, null to skip the disk cache
+     */
+    public <T> Precomputed<T> add(String key, Supplier<T> generator, Codec<T> codec) {
+        Precomputed<T> value = new Precomputed<>(key, generator, codec, cache, executor);
+        values.add(value);
+        return value;
+    }
+
+    /**
+     * Starts every registered value in registration order
+     */
+    public void startAll() {
+        for (Precomputed<?> value : values) {
+            value.start();
+        }
+    }
+
+    /**
+     * Stops the background thread once the values already started are done
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.stuyfission.fissionlib.command;
+
+/**
+ * Runs commands one after another as a single command, so a series of steps can be nested inside
+ * a {@link ParallelCommand}
+ */
+public class SequentialCommand extends CommandImpl {
+
+    private final CommandImpl[] commands;
+    private int commandIndex;
+    private boolean commandStarted;
+
+    public SequentialCommand(CommandImpl... commands) {
+        this.commands = commands;
+        super.completed = false;
+    }
+
+    @Override
+    public void run() {
+        commandIndex = 0;
+        commandStarted = false;
+        super.completed = false;
+        step();
+    }
+
+    @Override
+    public void update() {
+        if (!super.completed) {
+            step();
+        }
+    }
+
+    private void step() {
+        while (commandIndex < commands.length) {
+            CommandImpl command = commands[commandIndex];
+            if (commandStarted) {
+                command.update();
+            } else {
+                commandStarted = true;
+                command.run();
+            }
+
+            if (!command.completed) {
+                return;
+            }
+            commandIndex++;
+            commandStarted = false;
+        }
+        super.completed = true;
+    }
+
+    @Override
+    public void setMailbox(ActionMailbox mailbox) {
+        for (CommandImpl command : commands) {
+            command.setMailbox(mailbox);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        if (commandStarted && commandIndex < commands.length) {
+            commands[commandIndex].cancel();
+        }
+        commandStarted = false;
+        commandIndex = commands.length;
+    }
+
+}
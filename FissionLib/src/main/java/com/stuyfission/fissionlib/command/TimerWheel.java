@@ -0,0 +1,164 @@
+package com.stuyfission.fissionlib.command;
+
+import com.stuyfission.fissionlib.util.Clock;
+
+/**
+ * Hashed timer wheel shared by every {@link WaitCommand}. Deadlines are hashed into a ring of
+ * buckets by tick, so {@link #advance(long)} only visits the buckets that elapsed since the last
+ * call and the timeouts stored in them. Calling it several times within one tick is O(1).
+ *
+ * Timeouts are intrusive linked-list nodes, so scheduling and cancelling do not allocate.
+ *
+ * Deadlines are measured on the wheel's {@link Clock}, so a wheel driven by a virtual clock expires
+ * waits in simulated time.
+ */
+public class TimerWheel {
+
+    private static volatile TimerWheel defaultWheel = new TimerWheel(1_000_000L, 512);
+
+    /**
+     * A node that can be scheduled on a {@link TimerWheel}. Reusable once expired or cancelled.
+     */
+    public static abstract class Timeout {
+
+        private long deadlineTick;
+        private Timeout next;
+        private Timeout prev;
+        private boolean scheduled;
+
+        /**
+         * Called by the thread advancing the wheel once the deadline has passed
+         */
+        protected abstract void expire();
+
+        public boolean isScheduled() { return scheduled; }
+    }
+
+    private final Clock clock;
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startTime;
+    private long currentTick;
+    private int pending;
+
+    /**
+     * @param tickNanos resolution of the wheel, deadlines fire at most one tick late
+     * @param bucketCount number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(long tickNanos, int bucketCount) {
+        this(tickNanos, bucketCount, Clock.SYSTEM);
+    }
+
+    /**
+     * @param tickNanos resolution of the wheel, deadlines fire at most one tick late
+     * @param bucketCount number of buckets, rounded up to a power of two
+     * @param clock time source deadlines are measured against
+     */
+    public TimerWheel(long tickNanos, int bucketCount, Clock clock) {
+        int size = Integer.highestOneBit(Math.max(1, bucketCount - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.clock = clock;
+        this.startTime = clock.nanoTime();
+        this.currentTick = 0;
+    }
+
+    /**
+     * @return wheel used by waits that were not given one
+     */
+    public static TimerWheel getDefault() { return defaultWheel; }
+
+    /**
+     * Replaces the wheel used by waits that were not given one, for example with a wheel driven by
+     * a simulated clock. Waits that are already scheduled stay on the previous wheel.
+     */
+    public static void setDefault(TimerWheel timerWheel) { defaultWheel = timerWheel; }
+
+    public Clock getClock() { return clock; }
+
+    /**
+     * @return number of timeouts waiting to expire
+     */
+    public synchronized int getPending() { return pending; }
+
+    /**
+     * Schedules a timeout, rescheduling it if it is already pending
+     *
+     * @param timeout node to schedule
+     * @param deadline {@link #getClock()} time at which the timeout expires
+     */
+    public synchronized void schedule(Timeout timeout, long deadline) {
+        if (timeout.scheduled) {
+            unlink(timeout);
+        }
+
+        long elapsed = deadline - startTime;
+        long tick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+        timeout.deadlineTick = Math.max(tick, currentTick);
+
+        int index = (int) (timeout.deadlineTick & mask);
+        timeout.prev = null;
+        timeout.next = buckets[index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        buckets[index] = timeout;
+        timeout.scheduled = true;
+        pending++;
+    }
+
+    public synchronized void cancel(Timeout timeout) {
+        if (timeout.scheduled) {
+            unlink(timeout);
+        }
+    }
+
+    /**
+     * Expires every timeout whose deadline is at or before now
+     *
+     * @param now current {@link #getClock()} time
+     */
+    public synchronized void advance(long now) {
+        long targetTick = (now - startTime) / tickNanos;
+        if (targetTick < currentTick) {
+            return;
+        }
+        if (pending == 0) {
+            currentTick = targetTick + 1;
+            return;
+        }
+
+        // a full turn visits every bucket, so there is no need to walk further after a long gap
+        long lastTick = Math.min(targetTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick && pending > 0; tick++) {
+            Timeout timeout = buckets[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= targetTick) {
+                    unlink(timeout);
+                    timeout.expire();
+                }
+                timeout = next;
+            }
+        }
+        currentTick = targetTick + 1;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.next = null;
+        timeout.prev = null;
+        timeout.scheduled = false;
+        pending--;
+    }
+
+}
@@ -3,21 +3,51 @@ package com.stuyfission.fissionlib.command;
 public class WaitCommand extends CommandImpl {
     
     private long waitDuration;
+    private final TimerWheel timerWheel;
+    private TimerWheel activeWheel;
+    private final TimerWheel.Timeout timeout = new TimerWheel.Timeout() {
+        @Override
+        protected void expire() {
+            completed = true;
+        }
+    };
 
-    // duration in seconds
+    // duration in seconds, waits on the default wheel at the time the command is run
     public WaitCommand(double waitDuration) {
+        this(waitDuration, null);
+    }
+
+    public WaitCommand(double waitDuration, TimerWheel timerWheel) {
         this.waitDuration = (long) (waitDuration * 1e9);
+        this.timerWheel = timerWheel;
         super.completed = false;
     }
 
     @Override
     public void run() {
-        long startTime = System.nanoTime();
-        while ((startTime + waitDuration) > System.nanoTime()) {
-            super.completed = false;
+        activeWheel = timerWheel != null ? timerWheel : TimerWheel.getDefault();
+        super.completed = waitDuration <= 0;
+        if (!super.completed) {
+            activeWheel.schedule(timeout, activeWheel.getClock().nanoTime() + waitDuration);
+        }
+    }
+
+    /**
+     * Advancing the shared wheel is O(1) once it has been advanced this tick, so every pending wait
+     * polling it costs close to nothing
+     */
+    @Override
+    public void update() {
+        if (activeWheel != null) {
+            activeWheel.advance(activeWheel.getClock().nanoTime());
         }
+    }
 
-        super.completed = true;
+    @Override
+    public void cancel() {
+        if (activeWheel != null) {
+            activeWheel.cancel(timeout);
+        }
     }
 
 }
@@ -0,0 +1,28 @@
+package com.stuyfission.fissionlib.command;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Completes once the condition is true, e.g. {@code new WaitUntilCommand(slides::profileDone)}.
+ * The condition is checked once per step and must not block.
+ */
+public class WaitUntilCommand extends CommandImpl {
+
+    private final BooleanSupplier condition;
+
+    public WaitUntilCommand(BooleanSupplier condition) {
+        this.condition = condition;
+        super.completed = false;
+    }
+
+    @Override
+    public void run() {
+        super.completed = condition.getAsBoolean();
+    }
+
+    @Override
+    public void update() {
+        super.completed = condition.getAsBoolean();
+    }
+
+}
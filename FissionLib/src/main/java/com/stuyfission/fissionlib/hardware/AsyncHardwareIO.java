@@ -0,0 +1,261 @@
+package com.stuyfission.fissionlib.hardware;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.util.Clock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AsyncHardwareIO moves hub reads and writes off the OpMode thread. A dedicated I/O thread
+ * repeatedly applies the latest motor powers, clears the bulk cache and reads every registered
+ * encoder, while control code works against the last completed read.
+ *
+ * Reads and writes are each exchanged through a lock-free triple buffer: {@link #beginCycle()}
+ * swaps in the newest completed read snapshot and {@link #endCycle()} publishes the powers set
+ * during the cycle. Neither side ever blocks the other and nothing is allocated per cycle.
+ *
+ * The I/O thread runs one pass per {@link #endCycle()}, or every 20ms while the loop is not
+ * calling it, and parks in between. Register every motor before {@link #start()}.
+ */
+public class AsyncHardwareIO {
+
+    private static final int DIRTY = 4;
+    private static final int INDEX_MASK = 3;
+    private static final long IDLE_NANOS = 20_000_000;
+
+    /**
+     * Triple buffer of exchangeable slots: the producer and consumer each own one slot and the
+     * third is shared through an atomic index, tagged dirty when it holds unread data
+     */
+    private static final class TripleBuffer {
+        private final AtomicInteger shared = new AtomicInteger(1);
+        private int producer = 0;
+        private int consumer = 2;
+
+        int producerSlot() { return producer; }
+
+        int consumerSlot() { return consumer; }
+
+        void publish() {
+            producer = shared.getAndSet(producer | DIRTY) & INDEX_MASK;
+        }
+
+        boolean acquire() {
+            if ((shared.get() & DIRTY) == 0) {
+                return false;
+            }
+            consumer = shared.getAndSet(consumer) & INDEX_MASK;
+            return true;
+        }
+    }
+
+    private final List<LynxModule> hubs;
+    private final Clock clock;
+    private final ArrayList<DcMotorEx> motors = new ArrayList<>();
+
+    private final TripleBuffer reads = new TripleBuffer();
+    private int[][] positions = new int[3][0];
+    private double[][] velocities = new double[3][0];
+    private final long[] readTime = new long[3];
+    private final long[] readSequence = new long[3];
+
+    private final TripleBuffer writes = new TripleBuffer();
+    private double[][] powers = new double[3][0];
+    private double[] writtenPowers = new double[0];
+    private boolean[] written = new boolean[0];
+
+    private volatile Thread ioThread;
+    private volatile boolean cycleRequested;
+    private long ioCycles;
+
+    public AsyncHardwareIO(HardwareMap hwMap) {
+        this(hwMap.getAll(LynxModule.class), Clock.SYSTEM);
+    }
+
+    /**
+     * @param hubs hubs to bulk read, switched to MANUAL bulk caching
+     * @param clock time source for snapshot timestamps
+     */
+    public AsyncHardwareIO(List<LynxModule> hubs, Clock clock) {
+        this.hubs = hubs;
+        this.clock = clock;
+        for (int i = 0; i < hubs.size(); i++) {
+            hubs.get(i).setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    /**
+     * Adds a motor to the I/O thread
+     *
+     * @return channel used to address the motor
+     */
+    public int register(DcMotorEx motor) {
+        if (ioThread != null) {
+            throw new IllegalStateException("register motors before starting AsyncHardwareIO");
+        }
+        int index = motors.indexOf(motor);
+        if (index >= 0) {
+            return index;
+        }
+        motors.add(motor);
+
+        int count = motors.size();
+        for (int i = 0; i < 3; i++) {
+            positions[i] = Arrays.copyOf(positions[i], count);
+            velocities[i] = Arrays.copyOf(velocities[i], count);
+            powers[i] = Arrays.copyOf(powers[i], count);
+        }
+        writtenPowers = Arrays.copyOf(writtenPowers, count);
+        written = Arrays.copyOf(written, count);
+        return count - 1;
+    }
+
+    public synchronized void start() {
+        if (ioThread != null) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                ioCycle();
+                long deadline = System.nanoTime() + IDLE_NANOS;
+                while (!cycleRequested && !Thread.currentThread().isInterrupted()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+                cycleRequested = false;
+            }
+        }, "AsyncHardwareIO");
+        thread.setDaemon(true);
+        ioThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the I/O thread and sets every registered motor to zero power
+     */
+    public synchronized void stop() {
+        Thread thread = ioThread;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioThread = null;
+
+        for (int i = 0; i < motors.size(); i++) {
+            motors.get(i).setPower(0);
+            writtenPowers[i] = 0;
+        }
+        for (double[] slot : powers) {
+            Arrays.fill(slot, 0);
+        }
+    }
+
+    /**
+     * One pass of the I/O thread: apply the newest powers, then take a fresh read snapshot
+     */
+    private void ioCycle() {
+        if (writes.acquire()) {
+            double[] pending = powers[writes.consumerSlot()];
+            for (int i = 0; i < pending.length; i++) {
+                if (!written[i] || pending[i] != writtenPowers[i]) {
+                    motors.get(i).setPower(pending[i]);
+                    writtenPowers[i] = pending[i];
+                    written[i] = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < hubs.size(); i++) {
+            hubs.get(i).clearBulkCache();
+        }
+
+        int slot = reads.producerSlot();
+        int[] slotPositions = positions[slot];
+        double[] slotVelocities = velocities[slot];
+        for (int i = 0; i < slotPositions.length; i++) {
+            DcMotorEx motor = motors.get(i);
+            slotPositions[i] = motor.getCurrentPosition();
+            slotVelocities[i] = motor.getVelocity();
+        }
+        readTime[slot] = clock.nanoTime();
+        readSequence[slot] = ++ioCycles;
+        reads.publish();
+    }
+
+    /**
+     * Swaps in the newest completed read snapshot, call once at the top of every loop
+     *
+     * @return whether a newer snapshot was available
+     */
+    public boolean beginCycle() {
+        return reads.acquire();
+    }
+
+    /**
+     * Publishes every power set this cycle to the I/O thread and wakes it for the next pass, call
+     * once at the end of every loop
+     */
+    public void endCycle() {
+        double[] next = powers[writes.producerSlot()];
+        writes.publish();
+        // carry the powers over so motors that were not set this cycle keep their power
+        System.arraycopy(next, 0, powers[writes.producerSlot()], 0, next.length);
+
+        Thread thread = ioThread;
+        if (thread != null) {
+            cycleRequested = true;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @return encoder position in ticks from the current snapshot
+     */
+    public int getPosition(int channel) { return positions[reads.consumerSlot()][channel]; }
+
+    /**
+     * @return encoder velocity in ticks per second from the current snapshot
+     */
+    public double getVelocity(int channel) { return velocities[reads.consumerSlot()][channel]; }
+
+    /**
+     * Queues a power, written by the I/O thread after the next {@link #endCycle()}
+     */
+    public void setPower(int channel, double power) {
+        powers[writes.producerSlot()][channel] = power;
+    }
+
+    public double getPower(int channel) {
+        return powers[writes.producerSlot()][channel];
+    }
+
+    /**
+     * @return nanoseconds between the end of the current snapshot's read and now
+     */
+    public long getStaleness() {
+        long time = readTime[reads.consumerSlot()];
+        return time == 0 ? Long.MAX_VALUE : clock.nanoTime() - time;
+    }
+
+    /**
+     * @return I/O cycle that produced the current snapshot, 0 before the first one
+     */
+    public long getSnapshotSequence() { return readSequence[reads.consumerSlot()]; }
+
+    public boolean isRunning() { return ioThread != null; }
+
+}
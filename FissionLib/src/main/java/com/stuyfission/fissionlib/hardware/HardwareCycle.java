@@ -0,0 +1,52 @@
+package com.stuyfission.fissionlib.hardware;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.List;
+
+/**
+ * HardwareCycle puts every hub in MANUAL bulk caching mode and marks the start of each loop.
+ *
+ * After {@link #begin()} the first encoder read on a hub issues one bulk read, and every following
+ * read that cycle is answered from the cache, so all mechanisms see the same encoder state.
+ * Call {@link #begin()} exactly once at the top of every OpMode loop; the cache is never cleared
+ * otherwise and values would go stale.
+ */
+public class HardwareCycle {
+
+    private final List<LynxModule> hubs;
+    private long cycle;
+
+    /**
+     * Finds all hubs on the hardware map and switches them to MANUAL bulk caching
+     *
+     * @param hwMap robot's hardware map
+     */
+    public HardwareCycle(HardwareMap hwMap) {
+        this(hwMap.getAll(LynxModule.class));
+    }
+
+    public HardwareCycle(List<LynxModule> hubs) {
+        this.hubs = hubs;
+        for (int i = 0; i < hubs.size(); i++) {
+            hubs.get(i).setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    /**
+     * Clears the bulk cache of every hub and starts a new cycle
+     */
+    public void begin() {
+        for (int i = 0; i < hubs.size(); i++) {
+            hubs.get(i).clearBulkCache();
+        }
+        cycle++;
+    }
+
+    /**
+     * @return number of the current cycle, values cached against an older cycle are stale
+     */
+    public long getCycle() { return cycle; }
+
+}
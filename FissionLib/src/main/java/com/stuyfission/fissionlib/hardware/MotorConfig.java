@@ -0,0 +1,58 @@
+package com.stuyfission.fissionlib.hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+/**
+ * Motor configuration helpers that read the current setting before writing it, so re-running
+ * init on a robot that is already configured skips the slow hub writes.
+ */
+public class MotorConfig {
+
+    private MotorConfig() { }
+
+    /**
+     * @return whether a write was issued
+     */
+    public static boolean setMode(DcMotor motor, DcMotor.RunMode mode) {
+        if (motor.getMode() == mode) {
+            return false;
+        }
+        motor.setMode(mode);
+        return true;
+    }
+
+    /**
+     * @return whether a write was issued
+     */
+    public static boolean setZeroPowerBehavior(DcMotor motor, DcMotor.ZeroPowerBehavior zeroPowerBehavior) {
+        if (motor.getZeroPowerBehavior() == zeroPowerBehavior) {
+            return false;
+        }
+        motor.setZeroPowerBehavior(zeroPowerBehavior);
+        return true;
+    }
+
+    /**
+     * Zeroes the encoder and leaves the motor in the given mode. Skipped entirely when the encoder
+     * already reads zero in that mode.
+     *
+     * @return whether a write was issued
+     */
+    public static boolean resetEncoder(DcMotor motor, DcMotor.RunMode mode) {
+        if (motor.getMode() == mode && motor.getCurrentPosition() == 0) {
+            return false;
+        }
+        motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        motor.setMode(mode);
+        return true;
+    }
+
+    /**
+     * Zeroed encoder, RUN_WITHOUT_ENCODER and BRAKE, as needed by motion profiled motors
+     */
+    public static void configureForProfiling(DcMotor motor) {
+        resetEncoder(motor, DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        setZeroPowerBehavior(motor, DcMotor.ZeroPowerBehavior.BRAKE);
+    }
+
+}
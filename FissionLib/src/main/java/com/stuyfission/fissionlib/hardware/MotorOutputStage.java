@@ -0,0 +1,150 @@
+package com.stuyfission.fissionlib.hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.stuyfission.fissionlib.util.MechanismStats;
+
+import java.util.Arrays;
+
+/**
+ * MotorOutputStage collects motor power commands during a loop and writes them to the hardware in
+ * one pass from {@link #flush()}.
+ *
+ * A device is only written when its power changed by at least epsilon since the last write, or
+ * when it is commanded to exactly zero, so that a stop is never swallowed. Powers set more than
+ * once in a cycle are coalesced into a single write.
+ */
+public class MotorOutputStage {
+
+    private static final double DEFAULT_EPSILON = 0.005;
+
+    private DcMotorSimple[] devices = new DcMotorSimple[4];
+    private double[] lastPower = new double[4];
+    private double[] pendingPower = new double[4];
+    private boolean[] dirty = new boolean[4];
+    private boolean[] written = new boolean[4];
+    private DcMotorSimple.Direction[] lastDirection = new DcMotorSimple.Direction[4];
+    private int deviceCount;
+
+    private double epsilon;
+    private long writesIssued;
+    private long writesSuppressed;
+
+    public MotorOutputStage() {
+        this(DEFAULT_EPSILON);
+    }
+
+    /**
+     * @param epsilon smallest power change that is written to the hardware
+     */
+    public MotorOutputStage(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    public void setEpsilon(double epsilon) { this.epsilon = epsilon; }
+
+    public double getEpsilon() { return epsilon; }
+
+    /**
+     * Adds a device to the stage
+     *
+     * @param device motor or servo-like device to write
+     * @return channel used to address the device
+     */
+    public int register(DcMotorSimple device) {
+        for (int i = 0; i < deviceCount; i++) {
+            if (devices[i] == device) {
+                return i;
+            }
+        }
+
+        if (deviceCount == devices.length) {
+            int size = deviceCount * 2;
+            devices = Arrays.copyOf(devices, size);
+            lastPower = Arrays.copyOf(lastPower, size);
+            pendingPower = Arrays.copyOf(pendingPower, size);
+            dirty = Arrays.copyOf(dirty, size);
+            written = Arrays.copyOf(written, size);
+            lastDirection = Arrays.copyOf(lastDirection, size);
+        }
+        devices[deviceCount] = device;
+        return deviceCount++;
+    }
+
+    /**
+     * Queues a power to be written on the next {@link #flush()}
+     */
+    public void setPower(int channel, double power) {
+        if (dirty[channel]) {
+            writesSuppressed++;
+        }
+        pendingPower[channel] = power;
+        dirty[channel] = true;
+    }
+
+    /**
+     * @return power queued for this cycle, or the last power written
+     */
+    public double getPower(int channel) {
+        return dirty[channel] ? pendingPower[channel] : lastPower[channel];
+    }
+
+    /**
+     * Writes a direction immediately, skipping the write if the device already has it
+     */
+    public void setDirection(int channel, DcMotorSimple.Direction direction) {
+        if (lastDirection[channel] == direction) {
+            writesSuppressed++;
+            return;
+        }
+        MechanismStats.recordHardwareCall();
+        devices[channel].setDirection(direction);
+        lastDirection[channel] = direction;
+        writesIssued++;
+    }
+
+    /**
+     * Writes every queued power that differs enough from the last value written. Call once at the
+     * end of every loop.
+     */
+    public void flush() {
+        for (int i = 0; i < deviceCount; i++) {
+            if (!dirty[i]) {
+                continue;
+            }
+            dirty[i] = false;
+
+            double power = pendingPower[i];
+            double last = lastPower[i];
+            if (written[i] && (Math.abs(power - last) < epsilon && (power != 0 || last == 0))) {
+                writesSuppressed++;
+                continue;
+            }
+
+            MechanismStats.recordHardwareCall();
+            devices[i].setPower(power);
+            lastPower[i] = power;
+            written[i] = true;
+            writesIssued++;
+        }
+    }
+
+    /**
+     * Forgets the last written values so the next flush writes every queued device
+     */
+    public void invalidate() {
+        for (int i = 0; i < deviceCount; i++) {
+            written[i] = false;
+            lastDirection[i] = null;
+        }
+    }
+
+    public long getWritesIssued() { return writesIssued; }
+
+    public long getWritesSuppressed() { return writesSuppressed; }
+
+    public void resetCounters() {
+        writesIssued = 0;
+        writesSuppressed = 0;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.stuyfission.fissionlib.hardware;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import java.util.List;
+
+/**
+ * VoltageSampler reads the battery voltage at a low rate on a background thread and publishes a
+ * low-pass filtered value, so control code can compensate for the battery without a hub
+ * transaction per read. {@link #getVoltage()} is a single volatile read.
+ *
+ * One sampler is meant to be shared by every motor on the robot.
+ */
+public class VoltageSampler {
+
+    public static final double NOMINAL_VOLTAGE = 12.0;
+
+    private static final double DEFAULT_RATE = 10;
+    private static final double DEFAULT_TIME_CONSTANT = 0.5;
+
+    private final List<VoltageSensor> sensors;
+    private final long periodMillis;
+    private final double alpha;
+
+    private volatile double voltage = NOMINAL_VOLTAGE;
+    private volatile long samples;
+    private volatile Thread samplerThread;
+
+    public VoltageSampler(HardwareMap hwMap) {
+        this(hwMap.getAll(VoltageSensor.class), DEFAULT_RATE, DEFAULT_TIME_CONSTANT);
+    }
+
+    /**
+     * @param sensors voltage sensors of the hubs, the lowest valid reading is used
+     * @param rateHz samples per second
+     * @param timeConstant time constant of the low-pass filter (s), 0 to publish raw samples
+     */
+    public VoltageSampler(List<VoltageSensor> sensors, double rateHz, double timeConstant) {
+        this.sensors = sensors;
+        this.periodMillis = Math.max(1, (long) (1000 / rateHz));
+        this.alpha = timeConstant > 0 ? 1 - Math.exp(-periodMillis / 1000.0 / timeConstant) : 1;
+    }
+
+    /**
+     * Takes a first, unfiltered sample and starts the sampler thread
+     */
+    public synchronized void start() {
+        if (samplerThread != null) {
+            return;
+        }
+
+        double first = read();
+        if (first > 0) {
+            voltage = first;
+            samples = 1;
+        }
+
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(periodMillis);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                sample();
+            }
+        }, "VoltageSampler");
+        thread.setDaemon(true);
+        samplerThread = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        Thread thread = samplerThread;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        samplerThread = null;
+    }
+
+    /**
+     * Takes one sample and updates the filtered voltage, called by the sampler thread
+     */
+    public void sample() {
+        double reading = read();
+        if (reading <= 0) {
+            return;
+        }
+        voltage = samples == 0 ? reading : voltage + alpha * (reading - voltage);
+        samples++;
+    }
+
+    private double read() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < sensors.size(); i++) {
+            double reading = sensors.get(i).getVoltage();
+            if (reading > 0) {
+                lowest = Math.min(lowest, reading);
+            }
+        }
+        return lowest == Double.POSITIVE_INFINITY ? 0 : lowest;
+    }
+
+    /**
+     * @return filtered battery voltage, {@link #NOMINAL_VOLTAGE} until the first valid sample
+     */
+    public double getVoltage() { return voltage; }
+
+    public long getSamples() { return samples; }
+
+    public boolean isRunning() { return samplerThread != null; }
+
+}
@@ -0,0 +1,163 @@
+package com.stuyfission.fissionlib.input;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.stuyfission.fissionlib.util.Clock;
+
+/**
+ * GamepadSnapshot captures every {@link GamepadStatic.Input} of a gamepad into a single int once
+ * per loop, bit {@code input.ordinal()} being set while the input is down.
+ *
+ * Queries are single bit tests against the current state and the rising / falling edges since the
+ * previous {@link #update(Gamepad)}, so a held button is reported as pressed exactly once.
+ * Optionally, changes are only accepted once an input has been stable for the debounce time.
+ */
+public class GamepadSnapshot {
+
+    private static final int INPUT_COUNT = GamepadStatic.Input.values().length;
+
+    private static final int DPAD_UP = bit(GamepadStatic.Input.DPAD_UP);
+    private static final int DPAD_DOWN = bit(GamepadStatic.Input.DPAD_DOWN);
+    private static final int DPAD_LEFT = bit(GamepadStatic.Input.DPAD_LEFT);
+    private static final int DPAD_RIGHT = bit(GamepadStatic.Input.DPAD_RIGHT);
+    private static final int A = bit(GamepadStatic.Input.A);
+    private static final int B = bit(GamepadStatic.Input.B);
+    private static final int X = bit(GamepadStatic.Input.X);
+    private static final int Y = bit(GamepadStatic.Input.Y);
+    private static final int START = bit(GamepadStatic.Input.START);
+    private static final int BACK = bit(GamepadStatic.Input.BACK);
+    private static final int LEFT_BUMPER = bit(GamepadStatic.Input.LEFT_BUMPER);
+    private static final int RIGHT_BUMPER = bit(GamepadStatic.Input.RIGHT_BUMPER);
+    private static final int LEFT_STICK_BUTTON = bit(GamepadStatic.Input.LEFT_STICK_BUTTON);
+    private static final int RIGHT_STICK_BUTTON = bit(GamepadStatic.Input.RIGHT_STICK_BUTTON);
+    private static final int LEFT_TRIGGER = bit(GamepadStatic.Input.LEFT_TRIGGER);
+    private static final int RIGHT_TRIGGER = bit(GamepadStatic.Input.RIGHT_TRIGGER);
+
+    static {
+        if (INPUT_COUNT > Integer.SIZE) {
+            throw new IllegalStateException("GamepadSnapshot masks hold at most " + Integer.SIZE + " inputs");
+        }
+    }
+
+    private Clock clock = Clock.SYSTEM;
+    private float triggerThreshold = 0f;
+    private long debounceNanos = 0;
+
+    private int raw;
+    private int state;
+    private int pressed;
+    private int released;
+    private final long[] rawChangeTime = new long[INPUT_COUNT];
+
+    public GamepadSnapshot() { }
+
+    /**
+     * @param triggerThreshold trigger value above which a trigger counts as pressed
+     * @param debounceSeconds time an input must be stable before a change is accepted
+     */
+    public GamepadSnapshot(float triggerThreshold, double debounceSeconds) {
+        setTriggerThreshold(triggerThreshold);
+        setDebounce(debounceSeconds);
+    }
+
+    public void setTriggerThreshold(float triggerThreshold) { this.triggerThreshold = triggerThreshold; }
+
+    public void setDebounce(double seconds) { this.debounceNanos = (long) (seconds * 1e9); }
+
+    /**
+     * @param clock time source for debouncing, {@link Clock#SYSTEM} by default
+     */
+    public void setClock(Clock clock) { this.clock = clock; }
+
+    /**
+     * @return bit used for an input in the masks of this class
+     */
+    public static int bit(GamepadStatic.Input input) {
+        return 1 << input.ordinal();
+    }
+
+    /**
+     * Reads every input of the gamepad into a bitmask, NONE is never set
+     */
+    public int capture(Gamepad gamepad) {
+        return (gamepad.dpad_up ? DPAD_UP : 0)
+                | (gamepad.dpad_down ? DPAD_DOWN : 0)
+                | (gamepad.dpad_left ? DPAD_LEFT : 0)
+                | (gamepad.dpad_right ? DPAD_RIGHT : 0)
+                | (gamepad.a ? A : 0)
+                | (gamepad.b ? B : 0)
+                | (gamepad.x ? X : 0)
+                | (gamepad.y ? Y : 0)
+                | (gamepad.start ? START : 0)
+                | (gamepad.back ? BACK : 0)
+                | (gamepad.left_bumper ? LEFT_BUMPER : 0)
+                | (gamepad.right_bumper ? RIGHT_BUMPER : 0)
+                | (gamepad.left_stick_button ? LEFT_STICK_BUTTON : 0)
+                | (gamepad.right_stick_button ? RIGHT_STICK_BUTTON : 0)
+                | (gamepad.left_trigger > triggerThreshold ? LEFT_TRIGGER : 0)
+                | (gamepad.right_trigger > triggerThreshold ? RIGHT_TRIGGER : 0);
+    }
+
+    /**
+     * Takes this loop's snapshot, call exactly once per loop
+     */
+    public void update(Gamepad gamepad) {
+        update(capture(gamepad), clock.nanoTime());
+    }
+
+    /**
+     * Takes this loop's snapshot from an already captured mask
+     *
+     * @param sample mask from {@link #capture(Gamepad)}
+     * @param now time of the sample from the snapshot's clock, in nanoseconds
+     */
+    public void update(int sample, long now) {
+        int next = sample;
+
+        if (debounceNanos > 0) {
+            for (int changed = sample ^ raw; changed != 0; changed &= changed - 1) {
+                rawChangeTime[Integer.numberOfTrailingZeros(changed)] = now;
+            }
+            raw = sample;
+
+            int unstable = 0;
+            for (int differs = sample ^ state; differs != 0; differs &= differs - 1) {
+                int i = Integer.numberOfTrailingZeros(differs);
+                if (now - rawChangeTime[i] < debounceNanos) {
+                    unstable |= 1 << i;
+                }
+            }
+            next = (sample & ~unstable) | (state & unstable);
+        }
+
+        pressed = next & ~state;
+        released = state & ~next;
+        state = next;
+    }
+
+    /**
+     * @return whether the input went down since the last snapshot
+     */
+    public boolean isPressed(GamepadStatic.Input input) { return (pressed & bit(input)) != 0; }
+
+    /**
+     * @return whether the input went up since the last snapshot
+     */
+    public boolean isReleased(GamepadStatic.Input input) { return (released & bit(input)) != 0; }
+
+    /**
+     * @return whether the input is down
+     */
+    public boolean isHeld(GamepadStatic.Input input) { return (state & bit(input)) != 0; }
+
+    public int getState() { return state; }
+
+    public int getPressedMask() { return pressed; }
+
+    public int getReleasedMask() { return released; }
+
+    /**
+     * @return mask of inputs that went down or up since the last snapshot
+     */
+    public int getChangedMask() { return pressed | released; }
+
+}
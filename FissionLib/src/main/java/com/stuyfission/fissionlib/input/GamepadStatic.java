@@ -4,6 +4,9 @@ import com.qualcomm.robotcore.hardware.Gamepad;
 
 public class GamepadStatic {
 
+    /**
+     * Ordinals double as bit indices in {@link GamepadSnapshot}, which supports up to 32 inputs
+     */
     public enum Input {
         NONE,
         DPAD_UP,
@@ -0,0 +1,59 @@
+package com.stuyfission.fissionlib.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Converts {@link FlightRecorder} logs to CSV, one row per record with time in seconds since the
+ * first record. The log is streamed, so match-length logs convert in constant memory.
+ */
+public class FlightLogCsv {
+
+    private static final String HEADER = "time,source,command,profile_x,profile_v,profile_a,measured_x,measured_v,output";
+
+    private FlightLogCsv() { }
+
+    public static void export(File log, File csv) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csv), FlightRecorder.UTF_8))) {
+            export(log, out);
+        }
+    }
+
+    /**
+     * @return number of records written
+     */
+    public static long export(File log, Writer out) throws IOException {
+        long rows = 0;
+        try (FlightLogReader reader = new FlightLogReader(log)) {
+            StringBuilder row = new StringBuilder(160);
+            out.write(HEADER);
+            out.write('\n');
+
+            long start = 0;
+            while (reader.next()) {
+                if (rows == 0) {
+                    start = reader.getTimestamp();
+                }
+                row.setLength(0);
+                row.append((reader.getTimestamp() - start) * 1e-9).append(',')
+                        .append(reader.getSourceName(reader.getSource())).append(',')
+                        .append(reader.getCommandIndex()).append(',')
+                        .append(reader.getProfileX()).append(',')
+                        .append(reader.getProfileV()).append(',')
+                        .append(reader.getProfileA()).append(',')
+                        .append(reader.getPosition()).append(',')
+                        .append(reader.getVelocity()).append(',')
+                        .append(reader.getOutput()).append('\n');
+                out.append(row);
+                rows++;
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+}
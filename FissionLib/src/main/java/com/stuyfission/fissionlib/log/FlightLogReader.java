@@ -0,0 +1,138 @@
+package com.stuyfission.fissionlib.log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * FlightLogReader streams the records of a {@link FlightRecorder} log in order. Records are read in
+ * fixed-size chunks, so memory use does not depend on the length of the log.
+ *
+ * <pre>
+ * try (FlightLogReader reader = new FlightLogReader(file)) {
+ *     while (reader.next()) {
+ *         double error = reader.getProfileX() - reader.getPosition();
+ *     }
+ * }
+ * </pre>
+ */
+public class FlightLogReader implements Closeable {
+
+    private static final int CHUNK_RECORDS = 1024;
+
+    private final RandomAccessFile input;
+    private final FileChannel channel;
+    private final String[] sources;
+    private final long recordCount;
+    private final long dropped;
+
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_RECORDS * FlightRecorder.RECORD_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private long recordsRead;
+    private int offset = -FlightRecorder.RECORD_SIZE;
+
+    public FlightLogReader(File file) throws IOException {
+        input = new RandomAccessFile(file, "r");
+        channel = input.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(FlightRecorder.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) >= 0) { }
+        if (header.position() < FlightRecorder.HEADER_SIZE || header.getInt(0) != FlightRecorder.MAGIC) {
+            close();
+            throw new IOException(file + " is not a flight log");
+        }
+        if (header.getInt(4) != FlightRecorder.VERSION
+                || header.getInt(FlightRecorder.HEADER_RECORD_SIZE) != FlightRecorder.RECORD_SIZE) {
+            close();
+            throw new IOException(file + " was written by an unsupported FlightRecorder version");
+        }
+
+        sources = new String[header.getInt(FlightRecorder.HEADER_SOURCE_COUNT)];
+        header.position(FlightRecorder.HEADER_SOURCES);
+        for (int i = 0; i < sources.length; i++) {
+            byte[] name = new byte[header.getShort()];
+            header.get(name);
+            sources[i] = new String(name, FlightRecorder.UTF_8);
+        }
+        recordCount = header.getLong(FlightRecorder.HEADER_RECORD_COUNT);
+        dropped = header.getLong(FlightRecorder.HEADER_DROPPED);
+
+        chunk.limit(0);
+    }
+
+    /**
+     * Moves to the next record
+     *
+     * @return false once every record has been read
+     */
+    public boolean next() throws IOException {
+        if (recordsRead >= recordCount) {
+            return false;
+        }
+
+        offset += FlightRecorder.RECORD_SIZE;
+        if (offset >= chunk.limit()) {
+            chunk.clear();
+            long remaining = (recordCount - recordsRead) * FlightRecorder.RECORD_SIZE;
+            if (remaining < chunk.capacity()) {
+                chunk.limit((int) remaining);
+            }
+            long position = FlightRecorder.HEADER_SIZE + recordsRead * FlightRecorder.RECORD_SIZE;
+            while (chunk.hasRemaining()) {
+                int read = channel.read(chunk, position + chunk.position());
+                if (read < 0) {
+                    throw new IOException("flight log ends before its last record");
+                }
+            }
+            chunk.flip();
+            offset = 0;
+        }
+        recordsRead++;
+        return true;
+    }
+
+    public long getRecordCount() { return recordCount; }
+
+    /**
+     * @return records the recorder dropped while writing this log
+     */
+    public long getDropped() { return dropped; }
+
+    public int getSourceCount() { return sources.length; }
+
+    public String getSourceName(int source) { return sources[source]; }
+
+    public long getTimestamp() { return chunk.getLong(offset + FlightRecorder.TIMESTAMP); }
+
+    public int getSource() { return chunk.getInt(offset + FlightRecorder.SOURCE); }
+
+    /**
+     * @return command index set on the recorder when the record was taken, -1 if none was set
+     */
+    public int getCommandIndex() { return chunk.getInt(offset + FlightRecorder.COMMAND_INDEX); }
+
+    public double getProfileX() { return chunk.getDouble(offset + FlightRecorder.PROFILE_X); }
+
+    public double getProfileV() { return chunk.getDouble(offset + FlightRecorder.PROFILE_V); }
+
+    public double getProfileA() { return chunk.getDouble(offset + FlightRecorder.PROFILE_A); }
+
+    public double getPosition() { return chunk.getDouble(offset + FlightRecorder.POSITION); }
+
+    public double getVelocity() { return chunk.getDouble(offset + FlightRecorder.VELOCITY); }
+
+    /**
+     * @return controller output passed to setPower, before the motor clips it to [-1, 1]
+     */
+    public double getOutput() { return chunk.getDouble(offset + FlightRecorder.OUTPUT); }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.stuyfission.fissionlib.log;
+
+import com.stuyfission.fissionlib.util.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FlightRecorder keeps a binary log of control loop data for every cycle of a match.
+ *
+ * The loop thread writes fixed-size records into an off-heap ring with absolute puts, so recording
+ * never allocates or touches the file. A background writer drains the ring into a memory-mapped
+ * file and keeps the record count in the file header up to date, so a log stays readable even if
+ * the OpMode is killed. Read logs back with {@link FlightLogReader} or convert them with
+ * {@link FlightLogCsv}.
+ *
+ * One recording thread. When the ring or the file is full, records are dropped and counted.
+ * Register every source before {@link #start()}.
+ */
+public class FlightRecorder {
+
+    static final int MAGIC = 0x46524543;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4096;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final int HEADER_RECORD_SIZE = 8;
+    static final int HEADER_SOURCE_COUNT = 12;
+    static final int HEADER_RECORD_COUNT = 16;
+    static final int HEADER_DROPPED = 24;
+    static final int HEADER_SOURCES = 32;
+
+    static final int TIMESTAMP = 0;
+    static final int SOURCE = 8;
+    static final int COMMAND_INDEX = 12;
+    static final int PROFILE_X = 16;
+    static final int PROFILE_V = 24;
+    static final int PROFILE_A = 32;
+    static final int POSITION = 40;
+    static final int VELOCITY = 48;
+    static final int OUTPUT = 56;
+    static final int RECORD_SIZE = 64;
+
+    private static final int DEFAULT_RING_CAPACITY = 4096;
+    private static final long DEFAULT_MAX_FILE_SIZE = 64L << 20;
+    private static final long DRAIN_PERIOD_MS = 20;
+
+    private final File file;
+    private final int ringCapacity;
+    private final long maxRecords;
+    private final Clock clock;
+    private final ByteBuffer ring;
+    private final ArrayList<String> sources = new ArrayList<>();
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile int commandIndex = -1;
+    private volatile boolean enabled = true;
+    private long ringDropped;
+
+    private RandomAccessFile output;
+    private MappedByteBuffer mapped;
+    private ByteBuffer ringView;
+    private volatile long recordsWritten;
+    private volatile long fileDropped;
+    private volatile Thread writerThread;
+
+    public FlightRecorder(File file) {
+        this(file, DEFAULT_RING_CAPACITY, DEFAULT_MAX_FILE_SIZE, Clock.SYSTEM);
+    }
+
+    /**
+     * @param file log file, overwritten on {@link #start()}
+     * @param ringCapacity records buffered between two drains of the writer
+     * @param maxFileSize size the log file is mapped with (bytes), records past it are dropped
+     * @param clock time source for record timestamps
+     */
+    public FlightRecorder(File file, int ringCapacity, long maxFileSize, Clock clock) {
+        if (maxFileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("FlightRecorder files are limited to 2 GB");
+        }
+        this.file = file;
+        this.ringCapacity = ringCapacity;
+        this.maxRecords = (maxFileSize - HEADER_SIZE) / RECORD_SIZE;
+        this.clock = clock;
+        this.ring = ByteBuffer.allocateDirect(ringCapacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Adds a source of records, such as a motor
+     *
+     * @param name name stored in the log header
+     * @return id to pass to {@link #record}
+     */
+    public int register(String name) {
+        if (writerThread != null) {
+            throw new IllegalStateException("register sources before starting the FlightRecorder");
+        }
+        sources.add(name);
+        return sources.size() - 1;
+    }
+
+    /**
+     * Creates the log file and starts the writer thread
+     */
+    public synchronized void start() throws IOException {
+        if (writerThread != null) {
+            return;
+        }
+
+        output = new RandomAccessFile(file, "rw");
+        output.setLength(0);
+        mapped = output.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + maxRecords * RECORD_SIZE);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader();
+        ringView = ring.duplicate();
+        recordsWritten = 0;
+        fileDropped = 0;
+
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                drain();
+                try {
+                    Thread.sleep(DRAIN_PERIOD_MS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            drain();
+        }, "FlightRecorder");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Writes out every buffered record and closes the log file
+     */
+    public synchronized void stop() {
+        Thread thread = writerThread;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+
+        mapped.force();
+        try {
+            // the mapping is no longer touched, so the unused tail can be cut off
+            output.setLength(HEADER_SIZE + recordsWritten * RECORD_SIZE);
+            output.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+        mapped.putInt(HEADER_SOURCE_COUNT, sources.size());
+        mapped.putLong(HEADER_RECORD_COUNT, 0);
+        mapped.putLong(HEADER_DROPPED, 0);
+
+        mapped.position(HEADER_SOURCES);
+        for (String source : sources) {
+            byte[] name = source.getBytes(UTF_8);
+            if (mapped.position() + 2 + name.length > HEADER_SIZE) {
+                throw new IOException("too many FlightRecorder sources to fit in the log header");
+            }
+            mapped.putShort((short) name.length);
+            mapped.put(name);
+        }
+    }
+
+    /**
+     * Sets the command index stamped on every following record, e.g. the running autonomous
+     * sequence
+     */
+    public void setCommandIndex(int commandIndex) { this.commandIndex = commandIndex; }
+
+    /**
+     * Pauses or resumes recording, records are not counted as dropped while disabled
+     */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Appends one record to the ring
+     *
+     * @param source id from {@link #register(String)}
+     * @return false if the record was not stored
+     */
+    public boolean record(int source, double profileX, double profileV, double profileA,
+                          double position, double velocity, double output) {
+        if (!enabled) {
+            return false;
+        }
+        long h = head.get();
+        if (h - tail.get() >= ringCapacity) {
+            ringDropped++;
+            return false;
+        }
+
+        int offset = (int) (h % ringCapacity) * RECORD_SIZE;
+        ring.putLong(offset + TIMESTAMP, clock.nanoTime());
+        ring.putInt(offset + SOURCE, source);
+        ring.putInt(offset + COMMAND_INDEX, commandIndex);
+        ring.putDouble(offset + PROFILE_X, profileX);
+        ring.putDouble(offset + PROFILE_V, profileV);
+        ring.putDouble(offset + PROFILE_A, profileA);
+        ring.putDouble(offset + POSITION, position);
+        ring.putDouble(offset + VELOCITY, velocity);
+        ring.putDouble(offset + OUTPUT, output);
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    /**
+     * Copies every published record to the file, in at most two bulk copies
+     */
+    private void drain() {
+        long t = tail.get();
+        long h = head.get();
+        while (t < h) {
+            int slot = (int) (t % ringCapacity);
+            int count = (int) Math.min(h - t, ringCapacity - slot);
+            int writable = (int) Math.min(count, maxRecords - recordsWritten);
+
+            if (writable > 0) {
+                ringView.limit((slot + writable) * RECORD_SIZE);
+                ringView.position(slot * RECORD_SIZE);
+                mapped.position((int) (HEADER_SIZE + recordsWritten * RECORD_SIZE));
+                mapped.put(ringView);
+                recordsWritten += writable;
+            }
+            fileDropped += count - writable;
+
+            t += count;
+            tail.lazySet(t);
+        }
+
+        mapped.putLong(HEADER_RECORD_COUNT, recordsWritten);
+        mapped.putLong(HEADER_DROPPED, fileDropped + ringDropped);
+    }
+
+    public long getRecordsWritten() { return recordsWritten; }
+
+    /**
+     * @return records lost because the ring or the file was full
+     */
+    public long getDropped() { return ringDropped + fileDropped; }
+
+    public File getFile() { return file; }
+
+    public boolean isRunning() { return writerThread != null; }
+
+}
@@ -1,7 +1,5 @@
 package com.stuyfission.fissionlib.motion;
 
-import com.acmerobotics.roadrunner.control.PIDCoefficients;
-import com.acmerobotics.roadrunner.control.PIDFController;
 import com.acmerobotics.roadrunner.profile.MotionProfile;
 import com.acmerobotics.roadrunner.profile.MotionProfileGenerator;
 import com.acmerobotics.roadrunner.profile.MotionState;
@@ -10,8 +8,15 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.Gamepad;
 import com.qualcomm.robotcore.hardware.HardwareMap;
-import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.RobotLog;
+import com.stuyfission.fissionlib.hardware.AsyncHardwareIO;
+import com.stuyfission.fissionlib.hardware.HardwareCycle;
+import com.stuyfission.fissionlib.hardware.MotorConfig;
+import com.stuyfission.fissionlib.hardware.MotorOutputStage;
+import com.stuyfission.fissionlib.hardware.VoltageSampler;
+import com.stuyfission.fissionlib.log.FlightRecorder;
+import com.stuyfission.fissionlib.util.Clock;
+import com.stuyfission.fissionlib.util.MechanismStats;
 
 import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
 
@@ -24,39 +29,83 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
     /**
      * Empirical wheel constants
      */
-    private Double WHEEL_RADIUS;
-    private Double GEAR_RATIO;
-    private Double TICKS_PER_REV;
+    private double WHEEL_RADIUS;
+    private double GEAR_RATIO;
+    private double TICKS_PER_REV;
+    private double inchesPerTick;
+    private boolean wheelConstantsSet;
 
     /**
      * Motion constraints - determined through experimentation
      */
-    private Double MAX_VEL;
-    private Double MAX_ACCEL;
+    private double MAX_VEL;
+    private double MAX_ACCEL;
+    private boolean motionConstraintsSet;
 
     /**
-     * Motion profile
+     * Motion profile, either generated in place into ownProfile or shared from the profile cache
      */
-    private MotionProfile profile;
-    private final ElapsedTime profileTimer = new ElapsedTime();
+    private final TrapezoidProfile ownProfile = new TrapezoidProfile();
+    private TrapezoidProfile profile = ownProfile;
+    private boolean hasProfile;
+    private ProfileCache profileCache;
+    private Clock clock = Clock.SYSTEM;
+    private long profileStartTime;
+    private boolean streaming;
 
     /**
      * Specifically for linear slides, multiplies MAX_VEL and MAX_ACCEL when retracting
      * retracting is defined as setting target position to a position less than current position
      */
-    private Double RETRACTION_MULTIPLIER;
+    private double RETRACTION_MULTIPLIER;
 
 
     /**
      * PID controller for motion profile
      */
-    private PIDFController PIDcontroller;
+    private final PIDFLoop PIDcontroller = new PIDFLoop();
+    private boolean PIDCoefficientsSet;
+    private VoltageSampler voltageSampler;
+
+    /**
+     * Optional hardware cycle, encoder values are read at most once per cycle when set
+     */
+    private HardwareCycle hardwareCycle;
+    private long positionCycle = -1;
+    private long velocityCycle = -1;
+    private double position;
+    private double velocity;
+
+    /**
+     * Optional output stage, powers are queued and written in batches when set
+     */
+    private MotorOutputStage outputStage;
+    private int outputChannel;
+
+    /**
+     * Optional asynchronous I/O, reads come from its snapshot and writes go to its write buffer
+     */
+    private AsyncHardwareIO asyncIO;
+    private int asyncChannel;
+
+    /**
+     * Optional flight recorder, every update is logged when set
+     */
+    private FlightRecorder flightRecorder;
+    private int flightRecorderSource;
 
     public MotionProfiledDcMotor(HardwareMap hwMap, String deviceName) {
-        motor = hwMap.get(DcMotorEx.class, deviceName);
-        motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-        motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+        this(hwMap.get(DcMotorEx.class, deviceName));
+    }
+
+    /**
+     * Wraps a motor that was already retrieved from the hardware map, or a simulated motor
+     *
+     * @param motor motor to profile
+     */
+    public MotionProfiledDcMotor(DcMotorEx motor) {
+        this.motor = motor;
+        MotorConfig.configureForProfiling(motor);
 
         RETRACTION_MULTIPLIER = 1.0;
     }
@@ -71,9 +120,7 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      */
     public void initialize(HardwareMap hwMap, String deviceName) {
         motor = hwMap.get(DcMotorEx.class, deviceName);
-        motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-        motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+        MotorConfig.configureForProfiling(motor);
     }
 
     /**
@@ -88,6 +135,8 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
         this.WHEEL_RADIUS = WHEEL_RADIUS;
         this.GEAR_RATIO = GEAR_RATIO;
         this.TICKS_PER_REV = TICKS_PER_REV;
+        this.inchesPerTick = WHEEL_RADIUS * 2 * Math.PI * GEAR_RATIO / TICKS_PER_REV;
+        this.wheelConstantsSet = true;
     }
 
     /**
@@ -99,6 +148,7 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
     public void setMotionConstraints(double MAX_VEL, double MAX_ACCEL) {
         this.MAX_VEL = MAX_VEL;
         this.MAX_ACCEL = MAX_ACCEL;
+        this.motionConstraintsSet = true;
     }
 
     /**
@@ -110,32 +160,177 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      * @param kF kF
      */
     public void setPIDCoefficients(double kP, double kI, double kD, double kF) {
-        PIDCoefficients coeffs = new PIDCoefficients(kP, kI, kD);
-        this.PIDcontroller = new PIDFController(coeffs, 0, 0, 0, (position, velocity) -> kF);
+        PIDcontroller.setCoefficients(kP, kI, kD, kF);
+        PIDCoefficientsSet = true;
+    }
+
+    /**
+     * Sets the feedforward added to the PID output, compensated for battery voltage when a
+     * {@link VoltageSampler} is set
+     *
+     * @param kS static friction (power)
+     * @param kV power per in/s of profile velocity
+     * @param kA power per in/s^2 of profile acceleration
+     * @param kG power holding the mechanism against gravity
+     */
+    public void setFeedforward(double kS, double kV, double kA, double kG) {
+        PIDcontroller.setFeedforward(kS, kV, kA, kG);
+    }
+
+    /**
+     * @param voltageSampler sampler shared by the robot, null to assume the nominal voltage
+     */
+    public void setVoltageSampler(VoltageSampler voltageSampler) {
+        this.voltageSampler = voltageSampler;
     }
 
     /**
      * Sets the retraction multiplier
-     * @param multiplier {@link Double RETRACTION_MULTIPLIER}
+     * @param multiplier {@link #RETRACTION_MULTIPLIER}
      */
     public void setRetractionMultiplier(double multiplier) {
         this.RETRACTION_MULTIPLIER = multiplier;
     }
 
+    /**
+     * Caches encoder reads for the duration of a {@link HardwareCycle} so that
+     * {@link #setTargetPosition(double)} and {@link #update()} share a single read per loop
+     *
+     * @param hardwareCycle cycle shared with the rest of the robot, null to always read the motor
+     */
+    public void setHardwareCycle(HardwareCycle hardwareCycle) {
+        this.hardwareCycle = hardwareCycle;
+        this.positionCycle = -1;
+        this.velocityCycle = -1;
+    }
+
+    /**
+     * Routes power and direction writes through a {@link MotorOutputStage}. Queued powers are only
+     * sent to the motor when the stage is flushed.
+     *
+     * @param outputStage stage flushed once per loop, null to write the motor directly
+     */
+    public void setOutputStage(MotorOutputStage outputStage) {
+        this.outputStage = outputStage;
+        if (outputStage != null) {
+            this.outputChannel = outputStage.register(motor);
+        }
+    }
+
+    /**
+     * Moves this motor's encoder reads and power writes to an {@link AsyncHardwareIO} thread.
+     * Must be called before the I/O thread is started.
+     *
+     * @param asyncIO I/O pipeline whose cycle is begun and ended by the OpMode, null for direct I/O
+     */
+    public void setAsyncIO(AsyncHardwareIO asyncIO) {
+        this.asyncIO = asyncIO;
+        if (asyncIO != null) {
+            this.asyncChannel = asyncIO.register(motor);
+        }
+    }
+
+    /**
+     * Logs the profile, measurements and output of every {@link #update()} to a
+     * {@link FlightRecorder}. Must be called before the recorder is started.
+     *
+     * @param flightRecorder recorder shared by the robot, null to stop logging
+     * @param name name of this motor in the log
+     */
+    public void setFlightRecorder(FlightRecorder flightRecorder, String name) {
+        this.flightRecorder = flightRecorder;
+        if (flightRecorder != null) {
+            this.flightRecorderSource = flightRecorder.register(name);
+        }
+    }
+
+    /**
+     * Sets the time source used to follow profiles and run the PID, so the motor can be driven by a
+     * simulated clock off the robot
+     *
+     * @param clock time source, {@link Clock#SYSTEM} by default
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        PIDcontroller.setClock(clock);
+    }
+
+    /**
+     * Looks up profiles in a {@link ProfileCache} instead of generating one on every
+     * {@link #setTargetPosition(double)}
+     *
+     * @param profileCache cache used by this motor only, null to always generate profiles
+     */
+    public void setProfileCache(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    /**
+     * Fills the profile cache with every move between the given presets starting from rest, so the
+     * first retarget to each preset is a lookup as well. Call after the motion constraints,
+     * retraction multiplier and profile cache are set.
+     *
+     * @param presets positions (inches) the motor is commonly sent to
+     */
+    public void prewarmProfiles(double... presets) {
+        if (profileCache == null || !motionConstraintsSet) {
+            return;
+        }
+
+        for (double start : presets) {
+            for (double goal : presets) {
+                if (start == goal) {
+                    continue;
+                }
+                double multiplier = goal < start ? RETRACTION_MULTIPLIER : 1.0;
+                profileCache.get(start, 0, goal, MAX_VEL * multiplier, MAX_ACCEL * multiplier);
+            }
+        }
+    }
+
+    /**
+     * In streaming mode, {@link #setTargetPosition(double)} replans from the state of the running
+     * profile instead of the measured position and velocity. Retargeting then costs no hardware
+     * reads and a constant-time profile generation, so the target can be changed every loop, e.g.
+     * from a joystick, without the motion stuttering.
+     *
+     * @param streaming whether to replan from the profile state
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() { return streaming; }
+
     /**
      * Converts motor ticks to inches of rotation
      *
      * @param ticks motor ticks
      * @return inches
      */
-    private final double encoderTicksToInches(double ticks) {
-        try {
-            return WHEEL_RADIUS * 2 * Math.PI * GEAR_RATIO * ticks / TICKS_PER_REV;
-        } catch (NullPointerException e) {
-            RobotLog.setGlobalErrorMsg("%s wheel constants not set. make sure to setConstants(double, double, double) "
-                    + getClass().getSimpleName());
+    protected final double encoderTicksToInches(double ticks) {
+        return ticks * inchesPerTick;
+    }
+
+    /**
+     * Reports missing configuration once per new target rather than on every loop
+     *
+     * @return whether wheel constants, motion constraints and PID gains are all set
+     */
+    private boolean checkConfiguration() {
+        if (!wheelConstantsSet) {
+            RobotLog.setGlobalErrorMsg("%s wheel constants not set. make sure to setWheelConstants(double, double, double)",
+                    getClass().getSimpleName());
+        } else if (!motionConstraintsSet) {
+            RobotLog.setGlobalErrorMsg("%s motion constraints not set. make sure to setMotionConstraints(double, double)",
+                    getClass().getSimpleName());
+        } else if (!PIDCoefficientsSet) {
+            RobotLog.setGlobalErrorMsg("%s PID coefficients not set. make sure to setPIDCoefficients(double, double, double, double)",
+                    getClass().getSimpleName());
+        } else {
+            return true;
         }
-        return 0.0;
+        return false;
     }
 
     /**
@@ -144,7 +339,14 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      * @return inches away from starting position
      */
     public double getPosition() {
-        return encoderTicksToInches(motor.getCurrentPosition());
+        if (asyncIO != null || hardwareCycle == null) {
+            return readPosition();
+        }
+        if (positionCycle != hardwareCycle.getCycle()) {
+            position = readPosition();
+            positionCycle = hardwareCycle.getCycle();
+        }
+        return position;
     }
 
     /**
@@ -153,6 +355,39 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      * @return motor velocity in (in/s)
      */
     public double getVelocity() {
+        if (asyncIO != null || hardwareCycle == null) {
+            return readVelocity();
+        }
+        if (velocityCycle != hardwareCycle.getCycle()) {
+            velocity = readVelocity();
+            velocityCycle = hardwareCycle.getCycle();
+        }
+        return velocity;
+    }
+
+    /**
+     * Reads the position from the async snapshot or the motor, bypassing the per-cycle cache
+     *
+     * @return inches away from starting position
+     */
+    protected double readPosition() {
+        if (asyncIO != null) {
+            return encoderTicksToInches(asyncIO.getPosition(asyncChannel));
+        }
+        MechanismStats.recordHardwareCall();
+        return encoderTicksToInches(motor.getCurrentPosition());
+    }
+
+    /**
+     * Reads the velocity from the async snapshot or the motor, bypassing the per-cycle cache
+     *
+     * @return motor velocity in (in/s)
+     */
+    protected double readVelocity() {
+        if (asyncIO != null) {
+            return encoderTicksToInches(asyncIO.getVelocity(asyncChannel));
+        }
+        MechanismStats.recordHardwareCall();
         return encoderTicksToInches(motor.getVelocity());
     }
 
@@ -176,21 +411,58 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
     }
 
     /**
-     * Uses {@link #generateProfile(double, Double, Double) generateProfile} to set the motor's target position
-     * using the motion profile
+     * Sets the motor's target position, generating a trapezoidal motion profile from the current
+     * position and velocity
      *
      * @param targetPosition inches
      */
     public void setTargetPosition(double targetPosition) {
-        if (targetPosition < getPosition()) { profile = generateProfile(targetPosition, MAX_VEL * RETRACTION_MULTIPLIER, MAX_ACCEL * RETRACTION_MULTIPLIER); }
-        else { profile = generateProfile(targetPosition, MAX_VEL, MAX_ACCEL); }
-        profileTimer.reset();
+        setTargetPosition(targetPosition, RETRACTION_MULTIPLIER);
     }
 
+    /**
+     * @param targetPosition inches
+     * @param retractionMultiplier multiplies MAX_VEL and MAX_ACCEL if the target is below the
+     *                             current position
+     */
     public void setTargetPosition(double targetPosition, double retractionMultiplier) {
-        if (targetPosition < getPosition()) { profile = generateProfile(targetPosition, MAX_VEL * retractionMultiplier, MAX_ACCEL * RETRACTION_MULTIPLIER); }
-        else { profile = generateProfile(targetPosition, MAX_VEL, MAX_ACCEL); }
-        profileTimer.reset();
+        if (!checkConfiguration()) {
+            return;
+        }
+
+        if (streaming && hasProfile) {
+            replan(targetPosition, retractionMultiplier);
+            return;
+        }
+
+        double position = getPosition();
+        double multiplier = targetPosition < position ? retractionMultiplier : 1.0;
+        if (profileCache != null) {
+            profile = profileCache.get(position, getVelocity(), targetPosition, MAX_VEL * multiplier, MAX_ACCEL * multiplier);
+        } else {
+            profile = ownProfile.generate(position, getVelocity(), targetPosition, MAX_VEL * multiplier, MAX_ACCEL * multiplier);
+        }
+        hasProfile = true;
+        profileStartTime = clock.nanoTime();
+    }
+
+    /**
+     * Regenerates the remaining motion from where the running profile is now, so the setpoint
+     * stays continuous in position and velocity
+     */
+    private void replan(double targetPosition, double retractionMultiplier) {
+        if (targetPosition == profile.getGoal()) {
+            return;
+        }
+
+        long now = clock.nanoTime();
+        profile.evaluate((now - profileStartTime) * 1e-9);
+        double x = profile.getX();
+        double v = profile.getV();
+
+        double multiplier = targetPosition < x ? retractionMultiplier : 1.0;
+        profile = ownProfile.generate(x, v, targetPosition, MAX_VEL * multiplier, MAX_ACCEL * multiplier);
+        profileStartTime = now;
     }
 
     /**
@@ -206,17 +478,28 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      * Motion profiles are time-based, this method must be called
      * inside the {@link com.stuyfission.fissionlib.util.Mechanism#loop(Gamepad) loop} of the class
      * otherwise the profile will not work
+     *
+     * Does not allocate, so it is safe to call every loop without causing GC pauses
      */
     public void update() {
-        MotionState state = profile.get(profileTimer.seconds());
+        if (!hasProfile) {
+            return;
+        }
 
-        PIDcontroller.setTargetPosition(state.getX());
-        PIDcontroller.setTargetVelocity(state.getV());
-        PIDcontroller.setTargetAcceleration(state.getA());
+        profile.evaluate(profileTime());
+        PIDcontroller.setTarget(profile.getX(), profile.getV(), profile.getA());
 
-        double power = PIDcontroller.update(getPosition(), getVelocity());
+        double position = getPosition();
+        double velocity = getVelocity();
+        double voltage = voltageSampler != null ? voltageSampler.getVoltage() : VoltageSampler.NOMINAL_VOLTAGE;
+        double power = PIDcontroller.update(position, velocity, voltage);
 
-        motor.setPower(power);
+        setPower(power);
+
+        if (flightRecorder != null) {
+            flightRecorder.record(flightRecorderSource, profile.getX(), profile.getV(), profile.getA(),
+                    position, velocity, power);
+        }
     }
 
 
@@ -291,6 +574,11 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      */
     @Override
     public void setDirection(Direction direction) {
+        if (outputStage != null) {
+            outputStage.setDirection(outputChannel, direction);
+            return;
+        }
+        MechanismStats.recordHardwareCall();
         motor.setDirection(direction);
     }
 
@@ -319,6 +607,15 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      */
     @Override
     public void setPower(double power) {
+        if (asyncIO != null) {
+            asyncIO.setPower(asyncChannel, power);
+            return;
+        }
+        if (outputStage != null) {
+            outputStage.setPower(outputChannel, power);
+            return;
+        }
+        MechanismStats.recordHardwareCall();
         motor.setPower(power);
     }
 
@@ -330,6 +627,12 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
      */
     @Override
     public double getPower() {
+        if (asyncIO != null) {
+            return asyncIO.getPower(asyncChannel);
+        }
+        if (outputStage != null) {
+            return outputStage.getPower(outputChannel);
+        }
         return motor.getPower();
     }
 
@@ -343,7 +646,34 @@ public class MotionProfiledDcMotor implements DcMotorSimple {
         return motor.getCurrent(unit);
     }
 
+    /**
+     * @return profile position (inches) sampled by the last {@link #update()}
+     */
+    public double getProfilePosition() { return profile.getX(); }
+
+    /**
+     * @return profile velocity (in/s) sampled by the last {@link #update()}
+     */
+    public double getProfileVelocity() { return profile.getV(); }
+
+    /**
+     * @return profile acceleration (in/s^2) sampled by the last {@link #update()}
+     */
+    public double getProfileAcceleration() { return profile.getA(); }
+
+    /**
+     * @return PIDF output computed by the last {@link #update()}
+     */
+    public double getControllerOutput() { return PIDcontroller.getLastOutput(); }
+
     public boolean profileDone(){
-        return profileTimer.seconds() > profile.duration();
+        return profileTime() > profile.duration();
+    }
+
+    /**
+     * @return seconds since the current profile was started
+     */
+    private double profileTime() {
+        return (clock.nanoTime() - profileStartTime) * 1e-9;
     }
 }
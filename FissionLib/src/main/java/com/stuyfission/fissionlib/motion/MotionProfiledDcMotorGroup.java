@@ -0,0 +1,267 @@
+package com.stuyfission.fissionlib.motion;
+
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.hardware.AsyncHardwareIO;
+import com.stuyfission.fissionlib.hardware.MotorConfig;
+import com.stuyfission.fissionlib.hardware.MotorOutputStage;
+import com.stuyfission.fissionlib.util.MechanismStats;
+
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+import java.util.Arrays;
+
+/**
+ * MotionProfiledDcMotorGroup drives several mechanically linked motors, such as the two sides of a
+ * slide, as one {@link MotionProfiledDcMotor}. One profile is generated and evaluated and one PIDF
+ * runs per update; its output is written to every motor.
+ *
+ * By default only the first motor's encoder is read, so the group costs the same as a single
+ * motor. {@link #useEncoders(int...)} averages several encoders instead. Motors are addressed by
+ * index, 0 being the first motor passed in.
+ *
+ * Per-motor directions are applied in software to both power and encoder, on top of the direction
+ * set on the hardware.
+ */
+public class MotionProfiledDcMotorGroup extends MotionProfiledDcMotor {
+
+    private final DcMotorEx[] motors;
+    private final double[] signs;
+    private final double[] powerOffsets;
+    private final double[] encoderOffsets;
+    private int[] encoders = {0};
+
+    private AsyncHardwareIO asyncIO;
+    private int[] asyncChannels;
+    private MotorOutputStage outputStage;
+    private int[] outputChannels;
+    private double power;
+
+    public MotionProfiledDcMotorGroup(HardwareMap hwMap, String deviceName, String... followerNames) {
+        this(hwMap.get(DcMotorEx.class, deviceName), getAll(hwMap, followerNames));
+    }
+
+    /**
+     * @param motor motor whose encoder is read by default
+     * @param followers motors driven with the same power
+     */
+    public MotionProfiledDcMotorGroup(DcMotorEx motor, DcMotorEx... followers) {
+        super(motor);
+
+        motors = new DcMotorEx[followers.length + 1];
+        motors[0] = motor;
+        for (int i = 0; i < followers.length; i++) {
+            DcMotorEx follower = followers[i];
+            MotorConfig.configureForProfiling(follower);
+            motors[i + 1] = follower;
+        }
+
+        signs = new double[motors.length];
+        Arrays.fill(signs, 1);
+        powerOffsets = new double[motors.length];
+        encoderOffsets = new double[motors.length];
+    }
+
+    private static DcMotorEx[] getAll(HardwareMap hwMap, String[] deviceNames) {
+        DcMotorEx[] motors = new DcMotorEx[deviceNames.length];
+        for (int i = 0; i < deviceNames.length; i++) {
+            motors[i] = hwMap.get(DcMotorEx.class, deviceNames[i]);
+        }
+        return motors;
+    }
+
+    /**
+     * Not supported, the followers would keep driving alongside a different leader. Construct a new
+     * group instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void initialize(HardwareMap hwMap, String deviceName) {
+        throw new UnsupportedOperationException("a motor group cannot be re-initialized, construct a new group");
+    }
+
+    public int getMotorCount() { return motors.length; }
+
+    public DcMotorEx getMotor(int index) { return motors[index]; }
+
+    /**
+     * Reverses a single motor relative to the group, e.g. for motors mounted on opposite sides
+     *
+     * @param index motor index
+     * @param direction REVERSE to negate the motor's power and encoder
+     */
+    public void setMotorDirection(int index, Direction direction) {
+        signs[index] = direction == Direction.REVERSE ? -1 : 1;
+    }
+
+    /**
+     * @param index motor index
+     * @param offset added to the group power before it is written to this motor, e.g. to even out
+     *               two sides that carry different loads
+     */
+    public void setPowerOffset(int index, double offset) {
+        powerOffsets[index] = offset;
+    }
+
+    /**
+     * @param index motor index
+     * @param offset subtracted from this motor's encoder position (inches), to line up encoders
+     *               that are averaged
+     */
+    public void setEncoderOffset(int index, double offset) {
+        encoderOffsets[index] = offset;
+    }
+
+    /**
+     * Selects the encoders the group position and velocity are averaged from
+     *
+     * @param indices motor indices, the first motor only by default
+     */
+    public void useEncoders(int... indices) {
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("a motor group needs at least one encoder");
+        }
+        for (int index : indices) {
+            if (index < 0 || index >= motors.length) {
+                throw new IllegalArgumentException("no motor " + index + " in a group of " + motors.length);
+            }
+        }
+        encoders = indices.clone();
+    }
+
+    @Override
+    public void setOutputStage(MotorOutputStage outputStage) {
+        super.setOutputStage(outputStage);
+        this.outputStage = outputStage;
+        if (outputStage != null) {
+            outputChannels = new int[motors.length];
+            for (int i = 0; i < motors.length; i++) {
+                outputChannels[i] = outputStage.register(motors[i]);
+            }
+        }
+    }
+
+    @Override
+    public void setAsyncIO(AsyncHardwareIO asyncIO) {
+        super.setAsyncIO(asyncIO);
+        this.asyncIO = asyncIO;
+        if (asyncIO != null) {
+            asyncChannels = new int[motors.length];
+            for (int i = 0; i < motors.length; i++) {
+                asyncChannels[i] = asyncIO.register(motors[i]);
+            }
+        }
+    }
+
+    @Override
+    protected double readPosition() {
+        double sum = 0;
+        for (int k = 0; k < encoders.length; k++) {
+            int i = encoders[k];
+            double ticks;
+            if (asyncIO != null) {
+                ticks = asyncIO.getPosition(asyncChannels[i]);
+            } else {
+                MechanismStats.recordHardwareCall();
+                ticks = motors[i].getCurrentPosition();
+            }
+            sum += signs[i] * encoderTicksToInches(ticks) - encoderOffsets[i];
+        }
+        return sum / encoders.length;
+    }
+
+    @Override
+    protected double readVelocity() {
+        double sum = 0;
+        for (int k = 0; k < encoders.length; k++) {
+            int i = encoders[k];
+            double ticks;
+            if (asyncIO != null) {
+                ticks = asyncIO.getVelocity(asyncChannels[i]);
+            } else {
+                MechanismStats.recordHardwareCall();
+                ticks = motors[i].getVelocity();
+            }
+            sum += signs[i] * encoderTicksToInches(ticks);
+        }
+        return sum / encoders.length;
+    }
+
+    /**
+     * Writes the power to every motor in one pass. With an output stage or async I/O the writes
+     * are queued and sent together.
+     */
+    @Override
+    public void setPower(double power) {
+        this.power = power;
+        for (int i = 0; i < motors.length; i++) {
+            double motorPower = signs[i] * (power + powerOffsets[i]);
+            if (asyncIO != null) {
+                asyncIO.setPower(asyncChannels[i], motorPower);
+            } else if (outputStage != null) {
+                outputStage.setPower(outputChannels[i], motorPower);
+            } else {
+                MechanismStats.recordHardwareCall();
+                motors[i].setPower(motorPower);
+            }
+        }
+    }
+
+    /**
+     * @return power last set on the group, before per-motor directions and offsets
+     */
+    @Override
+    public double getPower() {
+        return power;
+    }
+
+    /**
+     * Sets the hardware direction of every motor in the group
+     */
+    @Override
+    public void setDirection(Direction direction) {
+        for (int i = 0; i < motors.length; i++) {
+            if (outputStage != null) {
+                outputStage.setDirection(outputChannels[i], direction);
+            } else {
+                MechanismStats.recordHardwareCall();
+                motors[i].setDirection(direction);
+            }
+        }
+    }
+
+    /**
+     * @return total current consumed by the group
+     */
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        double current = 0;
+        for (DcMotorEx motor : motors) {
+            MechanismStats.recordHardwareCall();
+            current += motor.getCurrent(unit);
+        }
+        return current;
+    }
+
+    /**
+     * Resets the configuration of every motor in the group
+     */
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        for (DcMotorEx motor : motors) {
+            motor.resetDeviceConfigurationForOpMode();
+        }
+    }
+
+    /**
+     * Closes every motor in the group
+     */
+    @Override
+    public void close() {
+        for (DcMotorEx motor : motors) {
+            motor.close();
+        }
+    }
+
+}
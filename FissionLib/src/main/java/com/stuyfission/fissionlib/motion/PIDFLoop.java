@@ -0,0 +1,151 @@
+package com.stuyfission.fissionlib.motion;
+
+import com.stuyfission.fissionlib.hardware.VoltageSampler;
+import com.stuyfission.fissionlib.util.Clock;
+
+/**
+ * PIDFLoop is a primitive PIDF controller that follows a motion profile. It mirrors Road Runner's
+ * PIDFController (trapezoidal integral, derivative taken from the velocity error, constant kF) but
+ * works on primitive doubles only, so an update never boxes or allocates.
+ *
+ * Optionally adds a kS/kV/kA/kG feedforward computed from the target, scaled by the nominal over
+ * the measured battery voltage so the motor sees the same effort as the battery drains.
+ */
+public class PIDFLoop {
+
+    private double kP;
+    private double kI;
+    private double kD;
+    private double kF;
+
+    private double kS;
+    private double kV;
+    private double kA;
+    private double kG;
+
+    private double targetPosition;
+    private double targetVelocity;
+    private double targetAcceleration;
+
+    private double errorSum;
+    private double lastError;
+    private long lastUpdateTime;
+    private boolean hasLastUpdate;
+
+    private double lastOutput;
+    private Clock clock = Clock.SYSTEM;
+
+    public PIDFLoop() { }
+
+    public PIDFLoop(double kP, double kI, double kD, double kF) {
+        setCoefficients(kP, kI, kD, kF);
+    }
+
+    /**
+     * Sets gains and clears the integral and derivative history
+     *
+     * @param kP proportional gain
+     * @param kI integral gain
+     * @param kD derivative gain
+     * @param kF constant feedforward
+     */
+    public void setCoefficients(double kP, double kI, double kD, double kF) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.kF = kF;
+        reset();
+    }
+
+    /**
+     * @param clock time source used for the integral, {@link Clock#SYSTEM} by default
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        reset();
+    }
+
+    /**
+     * Sets the voltage-compensated feedforward, in power at the nominal voltage
+     *
+     * @param kS static friction, applied in the direction of the target velocity
+     * @param kV power per unit of target velocity
+     * @param kA power per unit of target acceleration
+     * @param kG constant power holding the mechanism against gravity
+     */
+    public void setFeedforward(double kS, double kV, double kA, double kG) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+        this.kG = kG;
+    }
+
+    public void setTarget(double position, double velocity, double acceleration) {
+        this.targetPosition = position;
+        this.targetVelocity = velocity;
+        this.targetAcceleration = acceleration;
+    }
+
+    public void reset() {
+        errorSum = 0;
+        lastError = 0;
+        hasLastUpdate = false;
+    }
+
+    /**
+     * Runs one iteration of the controller. Like Road Runner, the first call after a reset only
+     * records the error and returns zero.
+     *
+     * @param measuredPosition current position
+     * @param measuredVelocity current velocity
+     * @return controller output
+     */
+    public double update(double measuredPosition, double measuredVelocity) {
+        return update(measuredPosition, measuredVelocity, VoltageSampler.NOMINAL_VOLTAGE);
+    }
+
+    /**
+     * Runs one iteration of the controller with the feedforward compensated for the battery
+     *
+     * @param measuredPosition current position
+     * @param measuredVelocity current velocity
+     * @param voltage battery voltage, see {@link VoltageSampler}
+     * @return controller output
+     */
+    public double update(double measuredPosition, double measuredVelocity, double voltage) {
+        long now = clock.nanoTime();
+        double error = targetPosition - measuredPosition;
+
+        if (!hasLastUpdate) {
+            lastError = error;
+            lastUpdateTime = now;
+            hasLastUpdate = true;
+            lastOutput = 0;
+            return 0;
+        }
+
+        double dt = (now - lastUpdateTime) * 1e-9;
+        errorSum += 0.5 * (error + lastError) * dt;
+        lastError = error;
+        lastUpdateTime = now;
+
+        double feedforward = kS * Math.signum(targetVelocity) + kV * targetVelocity + kA * targetAcceleration + kG;
+        if (feedforward != 0 && voltage > 0) {
+            feedforward *= VoltageSampler.NOMINAL_VOLTAGE / voltage;
+        }
+
+        lastOutput = kP * error + kI * errorSum + kD * (targetVelocity - measuredVelocity) + kF + feedforward;
+        return lastOutput;
+    }
+
+    public double getTargetPosition() { return targetPosition; }
+
+    public double getTargetVelocity() { return targetVelocity; }
+
+    public double getTargetAcceleration() { return targetAcceleration; }
+
+    public double getLastError() { return lastError; }
+
+    public double getLastOutput() { return lastOutput; }
+
+}
@@ -0,0 +1,124 @@
+package com.stuyfission.fissionlib.motion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ProfileCache is a bounded, least-recently-used cache of {@link TrapezoidProfile}s.
+ *
+ * Profiles are keyed on the start state quantized to a grid, the exact goal and the exact motion
+ * constraints, so retargeting to the same preset from (nearly) the same place is a lookup instead
+ * of a profile generation. Cached profiles start at the quantized start state rather than the
+ * measured one; the position error is at most half a quantum and is corrected by the PID.
+ *
+ * Lookups that hit do not allocate. Not thread safe.
+ */
+public class ProfileCache {
+
+    private static final int DEFAULT_CAPACITY = 32;
+    private static final double DEFAULT_POSITION_QUANTUM = 0.05;
+    private static final double DEFAULT_VELOCITY_QUANTUM = 0.5;
+
+    private static final class Key {
+        long startX;
+        long startV;
+        long goal;
+        long maxVel;
+        long maxAccel;
+
+        Key copy() {
+            Key key = new Key();
+            key.startX = startX;
+            key.startV = startV;
+            key.goal = goal;
+            key.maxVel = maxVel;
+            key.maxAccel = maxAccel;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return startX == other.startX && startV == other.startV && goal == other.goal
+                    && maxVel == other.maxVel && maxAccel == other.maxAccel;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = startX;
+            hash = 31 * hash + startV;
+            hash = 31 * hash + goal;
+            hash = 31 * hash + maxVel;
+            hash = 31 * hash + maxAccel;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private final int capacity;
+    private final double positionQuantum;
+    private final double velocityQuantum;
+    private final LinkedHashMap<Key, TrapezoidProfile> profiles;
+    private final Key probe = new Key();
+
+    private long hits;
+    private long misses;
+
+    public ProfileCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_POSITION_QUANTUM, DEFAULT_VELOCITY_QUANTUM);
+    }
+
+    /**
+     * @param capacity maximum number of cached profiles
+     * @param positionQuantum start positions closer than this share a profile (inches)
+     * @param velocityQuantum start velocities closer than this share a profile (in/s)
+     */
+    public ProfileCache(int capacity, double positionQuantum, double velocityQuantum) {
+        this.capacity = capacity;
+        this.positionQuantum = positionQuantum;
+        this.velocityQuantum = velocityQuantum;
+        this.profiles = new LinkedHashMap<Key, TrapezoidProfile>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, TrapezoidProfile> eldest) {
+                return size() > ProfileCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached profile for this move, generating and caching it if needed. The returned
+     * profile is shared and must not be regenerated by the caller.
+     */
+    public TrapezoidProfile get(double startX, double startV, double goal, double maxVel, double maxAccel) {
+        probe.startX = Math.round(startX / positionQuantum);
+        probe.startV = Math.round(startV / velocityQuantum);
+        probe.goal = Double.doubleToLongBits(goal);
+        probe.maxVel = Double.doubleToLongBits(maxVel);
+        probe.maxAccel = Double.doubleToLongBits(maxAccel);
+
+        TrapezoidProfile profile = profiles.get(probe);
+        if (profile != null) {
+            hits++;
+            return profile;
+        }
+
+        misses++;
+        profile = new TrapezoidProfile(probe.startX * positionQuantum, probe.startV * velocityQuantum,
+                goal, maxVel, maxAccel);
+        profiles.put(probe.copy(), profile);
+        return profile;
+    }
+
+    public void clear() { profiles.clear(); }
+
+    public int size() { return profiles.size(); }
+
+    public int getCapacity() { return capacity; }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+}
@@ -0,0 +1,215 @@
+package com.stuyfission.fissionlib.motion;
+
+import com.stuyfission.fissionlib.util.Codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * TrapezoidProfile is a primitive, allocation-free trapezoidal motion profile. It is stored as a
+ * small array of constant-acceleration segments that is filled in place by
+ * {@link #generate(double, double, double, double, double)}.
+ *
+ * {@link #evaluate(double)} samples the profile into {@link #getX()}, {@link #getV()} and
+ * {@link #getA()} instead of returning a new state object, so it can run every loop without
+ * creating garbage.
+ */
+public class TrapezoidProfile {
+
+    /**
+     * Worst case is reversing out of an overshoot: one stopping segment followed by a full
+     * accelerate, cruise, decelerate trapezoid
+     */
+    private static final int MAX_SEGMENTS = 4;
+
+    /**
+     * Stores the generated segments, so a loaded profile is used as is without being generated
+     */
+    public static final Codec<TrapezoidProfile> CODEC = new Codec<TrapezoidProfile>() {
+        @Override
+        public void write(DataOutput out, TrapezoidProfile profile) throws IOException {
+            out.writeDouble(profile.startX);
+            out.writeDouble(profile.startV);
+            out.writeDouble(profile.goal);
+            out.writeDouble(profile.duration);
+            out.writeByte(profile.segmentCount);
+            for (int i = 0; i < profile.segmentCount; i++) {
+                out.writeDouble(profile.segmentStart[i]);
+                out.writeDouble(profile.segmentX[i]);
+                out.writeDouble(profile.segmentV[i]);
+                out.writeDouble(profile.segmentA[i]);
+            }
+        }
+
+        @Override
+        public TrapezoidProfile read(DataInput in) throws IOException {
+            TrapezoidProfile profile = new TrapezoidProfile();
+            profile.startX = in.readDouble();
+            profile.startV = in.readDouble();
+            profile.goal = in.readDouble();
+            profile.duration = in.readDouble();
+            profile.segmentCount = in.readByte();
+            if (profile.segmentCount < 0 || profile.segmentCount > MAX_SEGMENTS) {
+                throw new IOException("invalid TrapezoidProfile segment count " + profile.segmentCount);
+            }
+            for (int i = 0; i < profile.segmentCount; i++) {
+                profile.segmentStart[i] = in.readDouble();
+                profile.segmentX[i] = in.readDouble();
+                profile.segmentV[i] = in.readDouble();
+                profile.segmentA[i] = in.readDouble();
+            }
+            return profile;
+        }
+    };
+
+    private final double[] segmentStart = new double[MAX_SEGMENTS];
+    private final double[] segmentX = new double[MAX_SEGMENTS];
+    private final double[] segmentV = new double[MAX_SEGMENTS];
+    private final double[] segmentA = new double[MAX_SEGMENTS];
+    private int segmentCount;
+    private int segmentHint;
+
+    private double startX;
+    private double startV;
+    private double goal;
+    private double duration;
+
+    private double x;
+    private double v;
+    private double a;
+
+    public TrapezoidProfile() { }
+
+    public TrapezoidProfile(double startX, double startV, double goal, double maxVel, double maxAccel) {
+        generate(startX, startV, goal, maxVel, maxAccel);
+    }
+
+    /**
+     * Fills this profile with the fastest move from the start state to rest at the goal
+     *
+     * @param startX start position
+     * @param startV start velocity
+     * @param goal goal position, reached at zero velocity
+     * @param maxVel maximum velocity, must be positive
+     * @param maxAccel maximum acceleration, must be positive
+     * @return this profile
+     */
+    public TrapezoidProfile generate(double startX, double startV, double goal, double maxVel, double maxAccel) {
+        this.startX = startX;
+        this.startV = startV;
+        this.goal = goal;
+        this.segmentCount = 0;
+        this.segmentHint = 0;
+        this.duration = 0;
+
+        double x = startX;
+        double v = startV;
+
+        for (int pass = 0; pass < 2; pass++) {
+            double direction = goal >= x ? 1 : -1;
+            double distance = Math.abs(goal - x);
+            double speed = v * direction;
+
+            // moving away from the goal, faster than allowed, or unable to stop in time: brake first
+            double stoppingDistance = speed * speed / (2 * maxAccel);
+            if (speed < 0 || (speed > 0 && stoppingDistance > distance)) {
+                double time = Math.abs(v) / maxAccel;
+                addSegment(x, v, -Math.signum(v) * maxAccel, time);
+                x += 0.5 * v * time;
+                v = 0;
+                continue;
+            }
+            if (speed > maxVel) {
+                double time = (speed - maxVel) / maxAccel;
+                double travelled = (speed * speed - maxVel * maxVel) / (2 * maxAccel);
+                addSegment(x, v, -direction * maxAccel, time);
+                x += direction * travelled;
+                distance -= travelled;
+                speed = maxVel;
+            }
+
+            double peak = Math.sqrt(maxAccel * distance + 0.5 * speed * speed);
+            if (peak > maxVel) {
+                peak = maxVel;
+            }
+            double accelTime = (peak - speed) / maxAccel;
+            double accelDistance = (peak * peak - speed * speed) / (2 * maxAccel);
+            double decelTime = peak / maxAccel;
+            double decelDistance = peak * peak / (2 * maxAccel);
+            double cruiseDistance = Math.max(0, distance - accelDistance - decelDistance);
+            double cruiseTime = peak > 0 ? cruiseDistance / peak : 0;
+
+            addSegment(x, direction * speed, direction * maxAccel, accelTime);
+            x += direction * accelDistance;
+            addSegment(x, direction * peak, 0, cruiseTime);
+            x += direction * cruiseDistance;
+            addSegment(x, direction * peak, -direction * maxAccel, decelTime);
+            break;
+        }
+
+        return this;
+    }
+
+    private void addSegment(double x, double v, double a, double time) {
+        if (time <= 0 || segmentCount == MAX_SEGMENTS) {
+            return;
+        }
+        segmentStart[segmentCount] = duration;
+        segmentX[segmentCount] = x;
+        segmentV[segmentCount] = v;
+        segmentA[segmentCount] = a;
+        segmentCount++;
+        duration += time;
+    }
+
+    /**
+     * Samples the profile, results are read with {@link #getX()}, {@link #getV()} and
+     * {@link #getA()}
+     *
+     * @param t seconds since the start of the profile
+     */
+    public void evaluate(double t) {
+        if (segmentCount == 0 || t <= 0) {
+            x = segmentCount == 0 ? goal : startX;
+            v = segmentCount == 0 ? 0 : startV;
+            a = segmentCount == 0 ? 0 : segmentA[0];
+            return;
+        }
+        if (t >= duration) {
+            x = goal;
+            v = 0;
+            a = 0;
+            return;
+        }
+
+        // profiles are sampled forward in time, so the last segment is almost always still valid
+        int i = segmentHint;
+        if (segmentStart[i] > t) {
+            i = 0;
+        }
+        while (i + 1 < segmentCount && segmentStart[i + 1] <= t) {
+            i++;
+        }
+        segmentHint = i;
+
+        double dt = t - segmentStart[i];
+        a = segmentA[i];
+        v = segmentV[i] + a * dt;
+        x = segmentX[i] + segmentV[i] * dt + 0.5 * a * dt * dt;
+    }
+
+    public double getX() { return x; }
+
+    public double getV() { return v; }
+
+    public double getA() { return a; }
+
+    public double getGoal() { return goal; }
+
+    /**
+     * @return length of the profile in seconds
+     */
+    public double duration() { return duration; }
+
+}
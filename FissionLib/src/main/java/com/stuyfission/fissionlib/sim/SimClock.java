@@ -0,0 +1,37 @@
+package com.stuyfission.fissionlib.sim;
+
+import com.stuyfission.fissionlib.util.Clock;
+
+/**
+ * Virtual clock that only moves when it is advanced, used to run library code faster than real
+ * time. Not thread safe; advance it from the thread that runs the simulated loop.
+ */
+public class SimClock implements Clock {
+
+    private long now;
+
+    public SimClock() { }
+
+    /**
+     * @param startNanos initial time
+     */
+    public SimClock(long startNanos) {
+        this.now = startNanos;
+    }
+
+    @Override
+    public long nanoTime() { return now; }
+
+    public void advance(long nanos) {
+        now += nanos;
+    }
+
+    public void advanceSeconds(double seconds) {
+        advance((long) (seconds * 1e9));
+    }
+
+    public void set(long nanos) {
+        now = nanos;
+    }
+
+}
@@ -0,0 +1,303 @@
+package com.stuyfission.fissionlib.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+/**
+ * SimulatedDcMotorEx is a DcMotorEx backed by a physical model of a geared DC motor driving a load,
+ * so library code can run unchanged off the robot.
+ *
+ * The motor follows the linear torque-speed curve of a DC motor, with the applied voltage being the
+ * power times the battery voltage. The load adds inertia, viscous and Coulomb friction, a constant
+ * gravity torque and optional hard stops. With {@link ZeroPowerBehavior#BRAKE} a power of zero shorts
+ * the motor, braking it with its own back-EMF; with FLOAT it coasts.
+ *
+ * Everything is expressed at the gearbox output shaft, defaults model a 435 rpm goBILDA Yellow Jacket
+ * with no load attached. The built-in RUN_USING_ENCODER and RUN_TO_POSITION controllers are not
+ * simulated, powers are always applied open loop. Time only moves through {@link #step(double)},
+ * normally called by a {@link Simulation}.
+ */
+public class SimulatedDcMotorEx implements DcMotorEx {
+
+    private static final double GRAVITY = 9.81;
+
+    private final String name;
+
+    private double nominalVoltage = 12;
+    private double freeSpeed = 435 * 2 * Math.PI / 60;
+    private double stallTorque = 1.83;
+    private double stallCurrent = 9.2;
+    private double ticksPerRev = 384.5;
+
+    private double inertia = 1e-3;
+    private double viscousFriction;
+    private double coulombFriction;
+    private double gravityTorque;
+    private double minAngle = Double.NEGATIVE_INFINITY;
+    private double maxAngle = Double.POSITIVE_INFINITY;
+    private double batteryVoltage = 12;
+
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+    private Direction direction = Direction.FORWARD;
+    private boolean enabled = true;
+    private double power;
+
+    private double angle;
+    private double angularVelocity;
+    private double current;
+    private double encoderOffset;
+
+    public SimulatedDcMotorEx() {
+        this("SimulatedDcMotorEx");
+    }
+
+    /**
+     * @param name name reported by {@link #getDeviceName()}
+     */
+    public SimulatedDcMotorEx(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Sets the motor's characteristics, measured at the gearbox output
+     *
+     * @param freeSpeedRpm speed with no load at the nominal voltage
+     * @param stallTorque torque at zero speed at the nominal voltage (N m)
+     * @param stallCurrent current at zero speed at the nominal voltage (A)
+     * @param ticksPerRev encoder ticks per output revolution
+     */
+    public SimulatedDcMotorEx setMotor(double freeSpeedRpm, double stallTorque, double stallCurrent, double ticksPerRev) {
+        this.freeSpeed = freeSpeedRpm * 2 * Math.PI / 60;
+        this.stallTorque = stallTorque;
+        this.stallCurrent = stallCurrent;
+        this.ticksPerRev = ticksPerRev;
+        return this;
+    }
+
+    /**
+     * @param inertia moment of inertia of the load at the output shaft (kg m^2)
+     */
+    public SimulatedDcMotorEx setInertia(double inertia) {
+        this.inertia = inertia;
+        return this;
+    }
+
+    /**
+     * Models a vertical linear mechanism such as a slide: a mass lifted by a spool on the output
+     * shaft, setting both the inertia and the gravity torque
+     *
+     * @param mass lifted mass (kg)
+     * @param spoolRadius radius of the spool (m)
+     */
+    public SimulatedDcMotorEx setLinearLoad(double mass, double spoolRadius) {
+        this.inertia = mass * spoolRadius * spoolRadius;
+        this.gravityTorque = mass * GRAVITY * spoolRadius;
+        return this;
+    }
+
+    /**
+     * @param viscous torque per unit of speed (N m s / rad)
+     * @param coulomb constant torque opposing motion, also holding the load at rest (N m)
+     */
+    public SimulatedDcMotorEx setFriction(double viscous, double coulomb) {
+        this.viscousFriction = viscous;
+        this.coulombFriction = coulomb;
+        return this;
+    }
+
+    /**
+     * @param gravityTorque constant torque pulling the load towards negative positions (N m)
+     */
+    public SimulatedDcMotorEx setGravityTorque(double gravityTorque) {
+        this.gravityTorque = gravityTorque;
+        return this;
+    }
+
+    /**
+     * Adds hard stops the load cannot move past, such as the ends of a slide
+     *
+     * @param minTicks lowest encoder position
+     * @param maxTicks highest encoder position
+     */
+    public SimulatedDcMotorEx setPositionLimits(int minTicks, int maxTicks) {
+        this.minAngle = minTicks / ticksPerRev * 2 * Math.PI;
+        this.maxAngle = maxTicks / ticksPerRev * 2 * Math.PI;
+        return this;
+    }
+
+    /**
+     * @param nominalVoltage voltage the motor characteristics were measured at
+     */
+    public SimulatedDcMotorEx setNominalVoltage(double nominalVoltage) {
+        this.nominalVoltage = nominalVoltage;
+        return this;
+    }
+
+    /**
+     * @param batteryVoltage voltage a power of 1 applies to the motor, can be changed mid run to
+     *                       model sag
+     */
+    public SimulatedDcMotorEx setBatteryVoltage(double batteryVoltage) {
+        this.batteryVoltage = batteryVoltage;
+        return this;
+    }
+
+    public double getBatteryVoltage() { return batteryVoltage; }
+
+    /**
+     * Integrates the model over dt. The speed-dependent terms are integrated exactly, so the step
+     * stays stable for light loads and long steps.
+     *
+     * @param dt seconds to simulate
+     */
+    public void step(double dt) {
+        double sign = direction == Direction.REVERSE ? -1 : 1;
+        double voltage = enabled && mode != RunMode.STOP_AND_RESET_ENCODER
+                ? sign * Math.max(-1, Math.min(1, power)) * batteryVoltage / nominalVoltage : 0;
+        boolean driven = voltage != 0 || zeroPowerBehavior == ZeroPowerBehavior.BRAKE;
+
+        // torque = drive - damping * speed
+        double damping = viscousFriction + (driven ? stallTorque / freeSpeed : 0);
+        double drive = (driven ? stallTorque * voltage : 0) - gravityTorque;
+
+        if (angularVelocity == 0 && Math.abs(drive) <= coulombFriction) {
+            current = driven ? Math.abs(stallCurrent * voltage) : 0;
+            return;
+        }
+        drive -= Math.signum(angularVelocity != 0 ? angularVelocity : drive) * coulombFriction;
+
+        double acceleration = drive / inertia;
+        double rate = damping / inertia;
+        double previousVelocity = angularVelocity;
+        if (rate > 0) {
+            double terminal = acceleration / rate;
+            double decay = Math.exp(-rate * dt);
+            angle += terminal * dt + (angularVelocity - terminal) * (1 - decay) / rate;
+            angularVelocity = terminal + (angularVelocity - terminal) * decay;
+        } else {
+            angle += (angularVelocity + 0.5 * acceleration * dt) * dt;
+            angularVelocity += acceleration * dt;
+        }
+
+        // friction can stop the load but never reverse it
+        if (coulombFriction > 0 && previousVelocity * angularVelocity < 0) {
+            angularVelocity = 0;
+        }
+
+        if (angle < minAngle) {
+            angle = minAngle;
+            angularVelocity = Math.max(angularVelocity, 0);
+        } else if (angle > maxAngle) {
+            angle = maxAngle;
+            angularVelocity = Math.min(angularVelocity, 0);
+        }
+
+        current = driven ? Math.abs(stallCurrent * (voltage - angularVelocity / freeSpeed)) : 0;
+    }
+
+    /**
+     * @return physical angle of the output shaft (rad), ignoring direction and encoder resets
+     */
+    public double getAngle() { return angle; }
+
+    /**
+     * @return physical speed of the output shaft (rad/s), ignoring direction
+     */
+    public double getAngularVelocity() { return angularVelocity; }
+
+    /**
+     * Moves the load without simulating it, for example to start a test at a given position
+     */
+    public void setState(double angle, double angularVelocity) {
+        this.angle = angle;
+        this.angularVelocity = angularVelocity;
+    }
+
+    private double ticks() {
+        return angle / (2 * Math.PI) * ticksPerRev;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        double position = ticks() - encoderOffset;
+        return (int) Math.round(direction == Direction.REVERSE ? -position : position);
+    }
+
+    @Override
+    public double getVelocity() {
+        double velocity = angularVelocity / (2 * Math.PI) * ticksPerRev;
+        return direction == Direction.REVERSE ? -velocity : velocity;
+    }
+
+    @Override
+    public double getVelocity(AngleUnit unit) {
+        double velocity = direction == Direction.REVERSE ? -angularVelocity : angularVelocity;
+        return unit == AngleUnit.DEGREES ? Math.toDegrees(velocity) : velocity;
+    }
+
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        return unit == CurrentUnit.MILLIAMPS ? current * 1000 : current;
+    }
+
+    @Override
+    public void setPower(double power) { this.power = power; }
+
+    @Override
+    public double getPower() { return power; }
+
+    @Override
+    public void setMode(RunMode mode) {
+        if (mode == RunMode.STOP_AND_RESET_ENCODER) {
+            encoderOffset = ticks();
+            power = 0;
+        }
+        this.mode = mode;
+    }
+
+    @Override public RunMode getMode() { return mode; }
+    @Override public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) { this.zeroPowerBehavior = zeroPowerBehavior; }
+    @Override public ZeroPowerBehavior getZeroPowerBehavior() { return zeroPowerBehavior; }
+    @Override public void setDirection(Direction direction) { this.direction = direction; }
+    @Override public Direction getDirection() { return direction; }
+    @Override public void setMotorEnable() { enabled = true; }
+    @Override public void setMotorDisable() { enabled = false; }
+    @Override public boolean isMotorEnabled() { return enabled; }
+
+    @Override public void setVelocity(double angularRate) { }
+    @Override public void setVelocity(double angularRate, AngleUnit unit) { }
+    @Override @Deprecated public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) { }
+    @Override public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) { }
+    @Override public void setVelocityPIDFCoefficients(double p, double i, double d, double f) { }
+    @Override public void setPositionPIDFCoefficients(double p) { }
+    @Override @Deprecated public PIDCoefficients getPIDCoefficients(RunMode mode) { return null; }
+    @Override public PIDFCoefficients getPIDFCoefficients(RunMode mode) { return null; }
+    @Override public void setTargetPositionTolerance(int tolerance) { }
+    @Override public int getTargetPositionTolerance() { return 0; }
+    @Override public double getCurrentAlert(CurrentUnit unit) { return 0; }
+    @Override public void setCurrentAlert(double current, CurrentUnit unit) { }
+    @Override public boolean isOverCurrent() { return false; }
+    @Override public MotorConfigurationType getMotorType() { return null; }
+    @Override public void setMotorType(MotorConfigurationType motorType) { }
+    @Override public DcMotorController getController() { return null; }
+    @Override public int getPortNumber() { return 0; }
+    @Override @Deprecated public void setPowerFloat() { power = 0; }
+    @Override public boolean getPowerFloat() { return power == 0 && zeroPowerBehavior == ZeroPowerBehavior.FLOAT; }
+    @Override public void setTargetPosition(int position) { }
+    @Override public int getTargetPosition() { return 0; }
+    @Override public boolean isBusy() { return false; }
+    @Override public Manufacturer getManufacturer() { return Manufacturer.Other; }
+    @Override public String getDeviceName() { return name; }
+    @Override public String getConnectionInfo() { return "simulated"; }
+    @Override public int getVersion() { return 1; }
+    @Override public void resetDeviceConfigurationForOpMode() { direction = Direction.FORWARD; }
+    @Override public void close() { }
+
+}
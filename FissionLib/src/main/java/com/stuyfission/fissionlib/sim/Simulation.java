@@ -0,0 +1,144 @@
+package com.stuyfission.fissionlib.sim;
+
+import com.stuyfission.fissionlib.command.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulation steps simulated motors and the robot's loop on a {@link SimClock}, so a whole routine
+ * runs as fast as the host can compute it instead of in real time.
+ *
+ * Each {@link #step()} integrates every motor over one loop period in physics substeps, advances
+ * the clock and the simulation's timer wheel, then runs every loop body once. While installed, the
+ * simulation's wheel is the {@link TimerWheel#getDefault() default wheel}, so
+ * {@link com.stuyfission.fissionlib.command.WaitCommand WaitCommands} wait in simulated time.
+ *
+ * Library objects that measure time must be given {@link #getClock()}, and command sequences must be
+ * {@link com.stuyfission.fissionlib.command.CommandSequence.Mode#COOPERATIVE cooperative}: threaded
+ * sequences run on real time.
+ */
+public class Simulation implements AutoCloseable {
+
+    private static final double DEFAULT_LOOP_PERIOD = 0.01;
+    private static final int DEFAULT_SUBSTEPS = 10;
+
+    private final SimClock clock = new SimClock();
+    private final TimerWheel timerWheel;
+    private final ArrayList<SimulatedDcMotorEx> motors = new ArrayList<>();
+    private final ArrayList<Runnable> loops = new ArrayList<>();
+
+    private final long loopPeriodNanos;
+    private final int substeps;
+    private TimerWheel previousDefault;
+    private long steps;
+
+    public Simulation() {
+        this(DEFAULT_LOOP_PERIOD, DEFAULT_SUBSTEPS);
+    }
+
+    /**
+     * @param loopPeriod simulated seconds between two runs of the loop bodies
+     * @param substeps physics steps per loop period
+     */
+    public Simulation(double loopPeriod, int substeps) {
+        this.loopPeriodNanos = (long) (loopPeriod * 1e9);
+        this.substeps = Math.max(1, substeps);
+        this.timerWheel = new TimerWheel(1_000_000L, 512, clock);
+    }
+
+    public SimClock getClock() { return clock; }
+
+    public TimerWheel getTimerWheel() { return timerWheel; }
+
+    public Simulation addMotor(SimulatedDcMotorEx motor) {
+        motors.add(motor);
+        return this;
+    }
+
+    /**
+     * Adds code run once per simulated loop, in the order added, such as a mechanism's loop and a
+     * command machine's run
+     */
+    public Simulation addLoop(Runnable loop) {
+        loops.add(loop);
+        return this;
+    }
+
+    /**
+     * Makes this simulation's timer wheel the default one until {@link #close()}
+     */
+    public Simulation install() {
+        if (previousDefault == null) {
+            previousDefault = TimerWheel.getDefault();
+            TimerWheel.setDefault(timerWheel);
+        }
+        return this;
+    }
+
+    /**
+     * Restores the default timer wheel replaced by {@link #install()}
+     */
+    @Override
+    public void close() {
+        if (previousDefault != null) {
+            TimerWheel.setDefault(previousDefault);
+            previousDefault = null;
+        }
+    }
+
+    /**
+     * Simulates one loop period, then runs the loop bodies
+     */
+    public void step() {
+        double dt = loopPeriodNanos * 1e-9 / substeps;
+        for (int i = 0; i < substeps; i++) {
+            for (int j = 0; j < motors.size(); j++) {
+                motors.get(j).step(dt);
+            }
+        }
+        clock.advance(loopPeriodNanos);
+        timerWheel.advance(clock.nanoTime());
+        steps++;
+
+        for (int i = 0; i < loops.size(); i++) {
+            loops.get(i).run();
+        }
+    }
+
+    /**
+     * @param seconds simulated time to run for
+     */
+    public void run(double seconds) {
+        long end = clock.nanoTime() + (long) (seconds * 1e9);
+        while (clock.nanoTime() < end) {
+            step();
+        }
+    }
+
+    /**
+     * Steps until the condition holds or the timeout passes, checking the condition after each loop
+     *
+     * @param condition e.g. an auto command machine having completed
+     * @param timeout simulated seconds to give up after
+     * @return whether the condition was met
+     */
+    public boolean runUntil(BooleanSupplier condition, double timeout) {
+        long end = clock.nanoTime() + (long) (timeout * 1e9);
+        while (clock.nanoTime() < end) {
+            step();
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return simulated seconds since the simulation was created
+     */
+    public double getTime() { return clock.nanoTime() * 1e-9; }
+
+    public long getSteps() { return steps; }
+
+}
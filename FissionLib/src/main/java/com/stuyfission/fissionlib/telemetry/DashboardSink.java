@@ -0,0 +1,51 @@
+package com.stuyfission.fissionlib.telemetry;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+/**
+ * Sends the newest sample of each drain to FTC Dashboard as one packet, with keys
+ * {@code channel/field}, so it can be graphed without sending every sample. Use one sink per
+ * channel.
+ */
+public class DashboardSink implements DataChannel.Sink {
+
+    private final FtcDashboard dashboard;
+    private DataChannel channel;
+    private double[] latest;
+    private String[] keys;
+
+    public DashboardSink() {
+        this(FtcDashboard.getInstance());
+    }
+
+    public DashboardSink(FtcDashboard dashboard) {
+        this.dashboard = dashboard;
+    }
+
+    @Override
+    public void accept(DataChannel channel, long timestamp, double[] sample) {
+        if (channel != this.channel) {
+            this.channel = channel;
+            latest = new double[sample.length];
+            keys = new String[sample.length];
+            for (int i = 0; i < sample.length; i++) {
+                keys[i] = channel.getName() + "/" + channel.getField(i);
+            }
+        }
+        System.arraycopy(sample, 0, latest, 0, sample.length);
+    }
+
+    @Override
+    public void end(DataChannel channel) {
+        if (dashboard == null) {
+            return;
+        }
+        TelemetryPacket packet = new TelemetryPacket();
+        for (int i = 0; i < latest.length; i++) {
+            packet.put(keys[i], latest[i]);
+        }
+        dashboard.sendTelemetryPacket(packet);
+    }
+
+}
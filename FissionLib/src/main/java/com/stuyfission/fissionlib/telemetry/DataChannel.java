@@ -0,0 +1,110 @@
+package com.stuyfission.fissionlib.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataChannel is a high-rate channel for numeric samples such as motor and profile state. Each
+ * sample is a fixed set of doubles copied into a preallocated ring, so recording one from the
+ * control loop is a few array writes. A consumer, usually the {@link TelemetryPipeline} flusher,
+ * drains the ring into a {@link Sink}.
+ *
+ * One producer thread and one consumer thread. When the ring is full new samples are dropped.
+ */
+public class DataChannel {
+
+    /**
+     * Receives drained samples. The sample array is reused between calls and must not be kept.
+     */
+    public interface Sink {
+        void accept(DataChannel channel, long timestamp, double[] sample);
+
+        /**
+         * Called once after every drain that delivered at least one sample
+         */
+        default void end(DataChannel channel) { }
+    }
+
+    private final String name;
+    private final String[] fields;
+    private final int width;
+    private final int capacity;
+    private final double[] ring;
+    private final long[] timestamps;
+    private final double[] staging;
+    private final double[] out;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long dropped;
+
+    /**
+     * @param name channel name, used as a key prefix by sinks
+     * @param capacity number of samples buffered between drains
+     * @param fields name of every value in a sample, addressed by index in {@link #put(int, double)}
+     */
+    public DataChannel(String name, int capacity, String... fields) {
+        this.name = name;
+        this.fields = fields.clone();
+        this.width = fields.length;
+        this.capacity = capacity;
+        this.ring = new double[capacity * width];
+        this.timestamps = new long[capacity];
+        this.staging = new double[width];
+        this.out = new double[width];
+    }
+
+    public String getName() { return name; }
+
+    public String getField(int field) { return fields[field]; }
+
+    public int getWidth() { return width; }
+
+    /**
+     * Sets a value of the sample being built
+     */
+    public void put(int field, double value) {
+        staging[field] = value;
+    }
+
+    /**
+     * Publishes the sample being built
+     *
+     * @return false if the ring was full and the sample was dropped
+     */
+    public boolean commit() {
+        long h = head.get();
+        if (h - tail.get() >= capacity) {
+            dropped++;
+            return false;
+        }
+
+        int slot = (int) (h % capacity);
+        System.arraycopy(staging, 0, ring, slot * width, width);
+        timestamps[slot] = System.nanoTime();
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    /**
+     * Hands every published sample to the sink, oldest first
+     *
+     * @return number of samples drained
+     */
+    public int drain(Sink sink) {
+        long t = tail.get();
+        long h = head.get();
+        for (long i = t; i < h; i++) {
+            int slot = (int) (i % capacity);
+            System.arraycopy(ring, slot * width, out, 0, width);
+            sink.accept(this, timestamps[slot], out);
+            tail.lazySet(i + 1);
+        }
+        if (h > t) {
+            sink.end(this);
+        }
+        return (int) (h - t);
+    }
+
+    public long getDropped() { return dropped; }
+
+}
@@ -0,0 +1,194 @@
+package com.stuyfission.fissionlib.telemetry;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TelemetryPipeline decouples telemetry from the control loop.
+ *
+ * Values are registered once under a stable id and set every loop with
+ * {@link #put(int, double)}, which only stores a primitive. At a fixed rate, the pipeline formats
+ * and sends only the values that changed since the last flush, and drains any attached
+ * {@link DataChannel}s into their sinks. Flushing happens either on a background thread
+ * ({@link #start()}) or throttled from the loop ({@link #flush()}), never both.
+ *
+ * The pipeline owns the Telemetry it is given: it turns off auto clear and keeps one item per
+ * value. Register every value and channel before starting.
+ */
+public class TelemetryPipeline {
+
+    private static final String DEFAULT_FORMAT = "%.3f";
+
+    private final Telemetry telemetry;
+    private final long flushPeriodNanos;
+
+    private String[] captions = new String[8];
+    private String[] formats = new String[8];
+    private Telemetry.Item[] items = new Telemetry.Item[8];
+    private long[] sentBits = new long[8];
+    private AtomicLongArray values = new AtomicLongArray(8);
+    private int count;
+
+    private final ArrayList<DataChannel> channels = new ArrayList<>();
+    private final ArrayList<DataChannel.Sink> sinks = new ArrayList<>();
+
+    private long lastFlush;
+    private long flushes;
+    private long valuesSent;
+    private volatile boolean enabled = true;
+    private volatile Thread flushThread;
+
+    /**
+     * @param telemetry OpMode telemetry, or a MultipleTelemetry that includes FTC Dashboard
+     * @param rateHz flushes per second
+     */
+    public TelemetryPipeline(Telemetry telemetry, double rateHz) {
+        this.telemetry = telemetry;
+        this.flushPeriodNanos = (long) (1e9 / rateHz);
+        this.lastFlush = System.nanoTime() - flushPeriodNanos;
+        telemetry.setAutoClear(false);
+    }
+
+    public int register(String caption) {
+        return register(caption, DEFAULT_FORMAT);
+    }
+
+    /**
+     * Registers a value
+     *
+     * @param caption telemetry caption
+     * @param format format applied to the value when it is sent
+     * @return id to pass to {@link #put(int, double)}
+     */
+    public synchronized int register(String caption, String format) {
+        if (count == captions.length) {
+            int size = count * 2;
+            captions = Arrays.copyOf(captions, size);
+            formats = Arrays.copyOf(formats, size);
+            items = Arrays.copyOf(items, size);
+            sentBits = Arrays.copyOf(sentBits, size);
+            AtomicLongArray grown = new AtomicLongArray(size);
+            for (int i = 0; i < count; i++) {
+                grown.set(i, values.get(i));
+            }
+            values = grown;
+        }
+
+        captions[count] = caption;
+        formats[count] = format;
+        values.set(count, Double.doubleToRawLongBits(Double.NaN));
+        // NaN bits never equal a real value, so every value is sent on the first flush
+        sentBits[count] = Double.doubleToRawLongBits(Double.NaN) ^ 1;
+        return count++;
+    }
+
+    /**
+     * Attaches a high-rate channel, drained into the sink on every flush
+     */
+    public synchronized void addChannel(DataChannel channel, DataChannel.Sink sink) {
+        channels.add(channel);
+        sinks.add(sink);
+    }
+
+    /**
+     * Sets a value, safe to call every loop: no formatting and no allocation
+     */
+    public void put(int id, double value) {
+        values.lazySet(id, Double.doubleToRawLongBits(value));
+    }
+
+    public void put(int id, boolean value) {
+        put(id, value ? 1 : 0);
+    }
+
+    /**
+     * Pauses flushing, for example while the loop is overrunning
+     */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Flushes if the flush period has elapsed since the last flush
+     *
+     * @return whether a flush happened
+     */
+    public boolean flush() {
+        long now = System.nanoTime();
+        if (!enabled || now - lastFlush < flushPeriodNanos) {
+            return false;
+        }
+        lastFlush = now;
+        flushNow();
+        return true;
+    }
+
+    /**
+     * Sends every changed value and drains every channel, regardless of the flush rate
+     */
+    public synchronized void flushNow() {
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            long bits = values.get(i);
+            if (bits == sentBits[i]) {
+                continue;
+            }
+            sentBits[i] = bits;
+            double value = Double.longBitsToDouble(bits);
+            if (items[i] == null) {
+                items[i] = telemetry.addData(captions[i], formats[i], value);
+            } else {
+                items[i].setValue(formats[i], value);
+            }
+            valuesSent++;
+            changed = true;
+        }
+        if (changed) {
+            telemetry.update();
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).drain(sinks.get(i));
+        }
+        flushes++;
+    }
+
+    /**
+     * Starts flushing on a background thread at the configured rate
+     */
+    public synchronized void start() {
+        if (flushThread != null) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (enabled) {
+                    flushNow();
+                }
+                try {
+                    Thread.sleep(flushPeriodNanos / 1_000_000, (int) (flushPeriodNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "TelemetryPipeline");
+        thread.setDaemon(true);
+        flushThread = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (flushThread != null) {
+            flushThread.interrupt();
+            flushThread = null;
+        }
+    }
+
+    public long getFlushes() { return flushes; }
+
+    public long getValuesSent() { return valuesSent; }
+
+}
@@ -0,0 +1,195 @@
+package com.stuyfission.fissionlib.tuning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * GainSweep scores every combination of the given gains and constraints on a simulated plant and
+ * reports the Pareto set of settle time, overshoot and peak power.
+ *
+ * Episodes are split across cores with fork/join. Candidates are decoded from their index in the
+ * grid, so even very large sweeps only hold their results in memory.
+ *
+ * <pre>
+ * List&lt;TuningResult&gt; front = new GainSweep(PlantModel.fit(log, motorSpec), scenario)
+ *         .kP(0.05, 0.1, 0.2, 0.4)
+ *         .kD(0, 0.005, 0.01)
+ *         .kF(0, 0.1, 0.2)
+ *         .maxVel(20, 30, 40)
+ *         .maxAccel(40, 60, 80)
+ *         .retractionMultiplier(0.5, 0.75, 1)
+ *         .paretoFront();
+ * </pre>
+ */
+public class GainSweep {
+
+    /**
+     * Episodes run by one task before it stops splitting
+     */
+    private static final int LEAF_SIZE = 8;
+
+    private final PlantModel plant;
+    private final TuningScenario scenario;
+
+    private double[] kP = {0};
+    private double[] kI = {0};
+    private double[] kD = {0};
+    private double[] kF = {0};
+    private double[] maxVel;
+    private double[] maxAccel;
+    private double[] retractionMultiplier = {1};
+
+    public GainSweep(PlantModel plant, TuningScenario scenario) {
+        this.plant = plant;
+        this.scenario = scenario;
+    }
+
+    public GainSweep kP(double... values) { kP = values; return this; }
+
+    public GainSweep kI(double... values) { kI = values; return this; }
+
+    public GainSweep kD(double... values) { kD = values; return this; }
+
+    public GainSweep kF(double... values) { kF = values; return this; }
+
+    /**
+     * @param values max velocities (in/s), required
+     */
+    public GainSweep maxVel(double... values) { maxVel = values; return this; }
+
+    /**
+     * @param values max accelerations (in/s^2), required
+     */
+    public GainSweep maxAccel(double... values) { maxAccel = values; return this; }
+
+    public GainSweep retractionMultiplier(double... values) { retractionMultiplier = values; return this; }
+
+    /**
+     * @return number of candidates in the grid
+     */
+    public int size() {
+        checkGrid();
+        long size = (long) kP.length * kI.length * kD.length * kF.length
+                * maxVel.length * maxAccel.length * retractionMultiplier.length;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("gain sweep has too many candidates: " + size);
+        }
+        return (int) size;
+    }
+
+    private void checkGrid() {
+        if (maxVel == null || maxAccel == null) {
+            throw new IllegalStateException("gain sweep needs maxVel and maxAccel values");
+        }
+    }
+
+    /**
+     * Decodes a grid index, kP varying slowest
+     */
+    public TuningCandidate getCandidate(int index) {
+        int i = index;
+        double retraction = retractionMultiplier[i % retractionMultiplier.length];
+        i /= retractionMultiplier.length;
+        double accel = maxAccel[i % maxAccel.length];
+        i /= maxAccel.length;
+        double vel = maxVel[i % maxVel.length];
+        i /= maxVel.length;
+        double f = kF[i % kF.length];
+        i /= kF.length;
+        double d = kD[i % kD.length];
+        i /= kD.length;
+        double integral = kI[i % kI.length];
+        i /= kI.length;
+        return new TuningCandidate(kP[i], integral, d, f, vel, accel, retraction);
+    }
+
+    /**
+     * Evaluates every candidate on the common fork/join pool
+     *
+     * @return results in grid order
+     */
+    public List<TuningResult> run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    public List<TuningResult> run(ForkJoinPool pool) {
+        TuningResult[] results = new TuningResult[size()];
+        pool.invoke(new SweepTask(results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Runs the sweep and keeps the results no other result beats in every score
+     */
+    public List<TuningResult> paretoFront() {
+        return paretoFront(run());
+    }
+
+    /**
+     * @return settled results not dominated by any other settled result, by increasing settle time
+     */
+    public static List<TuningResult> paretoFront(List<TuningResult> results) {
+        ArrayList<TuningResult> sorted = new ArrayList<>();
+        for (TuningResult result : results) {
+            if (result.isSettled()) {
+                sorted.add(result);
+            }
+        }
+        // in lexicographic order a result can only be dominated by one before it
+        Collections.sort(sorted, new Comparator<TuningResult>() {
+            @Override
+            public int compare(TuningResult a, TuningResult b) {
+                int order = Double.compare(a.getSettleTime(), b.getSettleTime());
+                if (order == 0) {
+                    order = Double.compare(a.getOvershoot(), b.getOvershoot());
+                }
+                if (order == 0) {
+                    order = Double.compare(a.getPeakPower(), b.getPeakPower());
+                }
+                return order;
+            }
+        });
+
+        ArrayList<TuningResult> front = new ArrayList<>();
+        for (TuningResult result : sorted) {
+            boolean dominated = false;
+            for (int i = 0; i < front.size() && !dominated; i++) {
+                dominated = front.get(i).dominates(result);
+            }
+            if (!dominated) {
+                front.add(result);
+            }
+        }
+        return front;
+    }
+
+    private final class SweepTask extends RecursiveAction {
+        private final TuningResult[] results;
+        private final int from;
+        private final int to;
+
+        SweepTask(TuningResult[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = scenario.evaluate(plant, getCandidate(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(results, from, middle), new SweepTask(results, middle, to));
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.stuyfission.fissionlib.tuning;
+
+import com.stuyfission.fissionlib.log.FlightLogReader;
+import com.stuyfission.fissionlib.log.FlightRecorder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * MotorLog holds samples of a motor logged on the robot, the input to
+ * {@link PlantModel#fit(MotorLog, PlantModel)}. Samples are stored in primitive arrays.
+ *
+ * Logs come from a {@link FlightRecorder} file, see {@link #readFlightLog(File, String, double)},
+ * or from a CSV written by your own logging, see {@link #readCsv(Reader)}.
+ */
+public class MotorLog {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private double[] time = new double[INITIAL_CAPACITY];
+    private double[] power = new double[INITIAL_CAPACITY];
+    private double[] position = new double[INITIAL_CAPACITY];
+    private double[] velocity = new double[INITIAL_CAPACITY];
+    private double[] voltage = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param time seconds
+     * @param power power written to the motor
+     * @param position encoder position (ticks)
+     * @param velocity encoder velocity (ticks/s)
+     * @param voltage battery voltage, NaN if not logged
+     */
+    public MotorLog add(double time, double power, double position, double velocity, double voltage) {
+        if (size == this.time.length) {
+            int capacity = size * 2;
+            this.time = Arrays.copyOf(this.time, capacity);
+            this.power = Arrays.copyOf(this.power, capacity);
+            this.position = Arrays.copyOf(this.position, capacity);
+            this.velocity = Arrays.copyOf(this.velocity, capacity);
+            this.voltage = Arrays.copyOf(this.voltage, capacity);
+        }
+        this.time[size] = time;
+        this.power[size] = power;
+        this.position[size] = position;
+        this.velocity[size] = velocity;
+        this.voltage[size] = voltage;
+        size++;
+        return this;
+    }
+
+    /**
+     * Reads a CSV log with a header row. The columns time, power, position and velocity are
+     * required, voltage is optional; other columns are ignored. Time may be in seconds or, when the
+     * column is named time_ns, in nanoseconds. Position and velocity are in encoder ticks.
+     *
+     * CSVs exported by {@link com.stuyfission.fissionlib.log.FlightLogCsv} hold inches instead;
+     * read the flight log itself with {@link #readFlightLog(File, String, double)}.
+     */
+    public static MotorLog readCsv(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("empty motor log");
+        }
+
+        String[] columns = header.split(",");
+        int timeColumn = -1;
+        int powerColumn = -1;
+        int positionColumn = -1;
+        int velocityColumn = -1;
+        int voltageColumn = -1;
+        double timeScale = 1;
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i].trim();
+            if (column.equals("time")) {
+                timeColumn = i;
+            } else if (column.equals("time_ns")) {
+                timeColumn = i;
+                timeScale = 1e-9;
+            } else if (column.equals("power")) {
+                powerColumn = i;
+            } else if (column.equals("position")) {
+                positionColumn = i;
+            } else if (column.equals("velocity")) {
+                velocityColumn = i;
+            } else if (column.equals("voltage")) {
+                voltageColumn = i;
+            }
+        }
+        if (timeColumn < 0 || powerColumn < 0 || positionColumn < 0 || velocityColumn < 0) {
+            throw new IOException("motor log needs time, power, position and velocity columns");
+        }
+
+        MotorLog log = new MotorLog();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] values = line.split(",");
+            log.add(Double.parseDouble(values[timeColumn]) * timeScale,
+                    Double.parseDouble(values[powerColumn]),
+                    Double.parseDouble(values[positionColumn]),
+                    Double.parseDouble(values[velocityColumn]),
+                    voltageColumn >= 0 ? Double.parseDouble(values[voltageColumn]) : Double.NaN);
+        }
+        return log;
+    }
+
+    /**
+     * Reads the records of one motor from a {@link FlightRecorder} log. The recorder logs inches
+     * and no battery voltage, so positions and velocities are converted back to ticks and the
+     * voltage is left NaN. Power is the recorded controller output clipped to [-1, 1], as the motor
+     * applies it.
+     *
+     * @param file flight log
+     * @param source name the motor was registered under
+     * @param ticksPerInch encoder ticks per inch of the motor's wheel constants,
+     *                     TICKS_PER_REV / (WHEEL_RADIUS * 2 * PI * GEAR_RATIO)
+     * @throws IOException if the log cannot be read or has no records for the source
+     */
+    public static MotorLog readFlightLog(File file, String source, double ticksPerInch) throws IOException {
+        MotorLog log = new MotorLog();
+        try (FlightLogReader reader = new FlightLogReader(file)) {
+            int sourceIndex = -1;
+            for (int i = 0; i < reader.getSourceCount(); i++) {
+                if (reader.getSourceName(i).equals(source)) {
+                    sourceIndex = i;
+                }
+            }
+            if (sourceIndex < 0) {
+                throw new IOException(file + " has no source named " + source);
+            }
+
+            long start = 0;
+            while (reader.next()) {
+                if (reader.getSource() != sourceIndex) {
+                    continue;
+                }
+                if (log.size == 0) {
+                    start = reader.getTimestamp();
+                }
+                log.add((reader.getTimestamp() - start) * 1e-9, Math.max(-1, Math.min(1, reader.getOutput())),
+                        reader.getPosition() * ticksPerInch, reader.getVelocity() * ticksPerInch, Double.NaN);
+            }
+        }
+        if (log.size == 0) {
+            throw new IOException(file + " has no records for " + source);
+        }
+        return log;
+    }
+
+    public int size() { return size; }
+
+    public double getTime(int i) { return time[i]; }
+
+    public double getPower(int i) { return power[i]; }
+
+    public double getPosition(int i) { return position[i]; }
+
+    public double getVelocity(int i) { return velocity[i]; }
+
+    public double getVoltage(int i) { return voltage[i]; }
+
+}
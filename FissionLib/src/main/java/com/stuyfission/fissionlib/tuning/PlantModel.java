@@ -0,0 +1,229 @@
+package com.stuyfission.fissionlib.tuning;
+
+import com.stuyfission.fissionlib.sim.SimulatedDcMotorEx;
+
+/**
+ * PlantModel describes a motor and its load, and creates {@link SimulatedDcMotorEx}s with those
+ * characteristics for each simulation episode. Parameters follow {@link SimulatedDcMotorEx} and are
+ * expressed at the gearbox output shaft.
+ *
+ * Load parameters can be set by hand or fitted to a {@link MotorLog} with
+ * {@link #fit(MotorLog, PlantModel)}.
+ */
+public class PlantModel {
+
+    /**
+     * Samples slower than this (rad/s) are skipped by the fit, where static friction dominates
+     */
+    private static final double MIN_FIT_SPEED = 0.05;
+
+    private double nominalVoltage = 12;
+    private double freeSpeedRpm = 435;
+    private double stallTorque = 1.83;
+    private double stallCurrent = 9.2;
+    private double ticksPerRev = 384.5;
+
+    private double inertia = 1e-3;
+    private double viscousFriction;
+    private double coulombFriction;
+    private double gravityTorque;
+    private int minTicks = Integer.MIN_VALUE;
+    private int maxTicks = Integer.MAX_VALUE;
+    private double batteryVoltage = 12;
+
+    public PlantModel() { }
+
+    public PlantModel(PlantModel other) {
+        this.nominalVoltage = other.nominalVoltage;
+        this.freeSpeedRpm = other.freeSpeedRpm;
+        this.stallTorque = other.stallTorque;
+        this.stallCurrent = other.stallCurrent;
+        this.ticksPerRev = other.ticksPerRev;
+        this.inertia = other.inertia;
+        this.viscousFriction = other.viscousFriction;
+        this.coulombFriction = other.coulombFriction;
+        this.gravityTorque = other.gravityTorque;
+        this.minTicks = other.minTicks;
+        this.maxTicks = other.maxTicks;
+        this.batteryVoltage = other.batteryVoltage;
+    }
+
+    /**
+     * @see SimulatedDcMotorEx#setMotor(double, double, double, double)
+     */
+    public PlantModel setMotor(double freeSpeedRpm, double stallTorque, double stallCurrent, double ticksPerRev) {
+        this.freeSpeedRpm = freeSpeedRpm;
+        this.stallTorque = stallTorque;
+        this.stallCurrent = stallCurrent;
+        this.ticksPerRev = ticksPerRev;
+        return this;
+    }
+
+    public PlantModel setInertia(double inertia) {
+        this.inertia = inertia;
+        return this;
+    }
+
+    public PlantModel setFriction(double viscous, double coulomb) {
+        this.viscousFriction = viscous;
+        this.coulombFriction = coulomb;
+        return this;
+    }
+
+    public PlantModel setGravityTorque(double gravityTorque) {
+        this.gravityTorque = gravityTorque;
+        return this;
+    }
+
+    public PlantModel setPositionLimits(int minTicks, int maxTicks) {
+        this.minTicks = minTicks;
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    public PlantModel setNominalVoltage(double nominalVoltage) {
+        this.nominalVoltage = nominalVoltage;
+        return this;
+    }
+
+    public PlantModel setBatteryVoltage(double batteryVoltage) {
+        this.batteryVoltage = batteryVoltage;
+        return this;
+    }
+
+    public double getInertia() { return inertia; }
+
+    public double getViscousFriction() { return viscousFriction; }
+
+    public double getCoulombFriction() { return coulombFriction; }
+
+    public double getGravityTorque() { return gravityTorque; }
+
+    public double getTicksPerRev() { return ticksPerRev; }
+
+    /**
+     * @return a new simulated motor with this model's characteristics, at rest at position 0
+     */
+    public SimulatedDcMotorEx createMotor() {
+        SimulatedDcMotorEx motor = new SimulatedDcMotorEx()
+                .setMotor(freeSpeedRpm, stallTorque, stallCurrent, ticksPerRev)
+                .setNominalVoltage(nominalVoltage)
+                .setBatteryVoltage(batteryVoltage)
+                .setInertia(inertia)
+                .setFriction(viscousFriction, coulombFriction)
+                .setGravityTorque(gravityTorque);
+        if (minTicks != Integer.MIN_VALUE || maxTicks != Integer.MAX_VALUE) {
+            motor.setPositionLimits(minTicks, maxTicks);
+        }
+        return motor;
+    }
+
+    /**
+     * Fits the load of a motor to logged data by linear least squares. The motor's characteristics
+     * are taken from the base model; the inertia, viscous and Coulomb friction and gravity torque are
+     * fitted to the acceleration seen in the log:
+     *
+     * <pre>
+     * inertia * accel = stallTorque * (voltage - speed / freeSpeed) - viscous * speed
+     *                   - coulomb * sign(speed) - gravity
+     * </pre>
+     *
+     * The log should be recorded with BRAKE zero power behavior and cover both directions at several
+     * powers, e.g. a few slow and fast moves of the mechanism.
+     *
+     * @param log samples logged on the robot
+     * @param base model supplying the motor characteristics and position limits
+     * @return a copy of the base model with the fitted load
+     * @throws IllegalArgumentException if the log does not contain enough motion to fit
+     */
+    public static PlantModel fit(MotorLog log, PlantModel base) {
+        double freeSpeed = base.freeSpeedRpm * 2 * Math.PI / 60;
+        double radiansPerTick = 2 * Math.PI / base.ticksPerRev;
+
+        // normal equations of accel = c0 * voltage + c1 * speed + c2 * sign(speed) + c3
+        double[][] normal = new double[4][5];
+        double[] features = new double[4];
+        int samples = 0;
+        for (int i = 1; i < log.size() - 1; i++) {
+            double dt = log.getTime(i + 1) - log.getTime(i - 1);
+            double speed = log.getVelocity(i) * radiansPerTick;
+            if (dt <= 0 || Math.abs(speed) < MIN_FIT_SPEED) {
+                continue;
+            }
+            double accel = (log.getVelocity(i + 1) - log.getVelocity(i - 1)) * radiansPerTick / dt;
+            double battery = Double.isNaN(log.getVoltage(i)) ? base.batteryVoltage : log.getVoltage(i);
+
+            features[0] = Math.max(-1, Math.min(1, log.getPower(i))) * battery / base.nominalVoltage;
+            features[1] = speed;
+            features[2] = Math.signum(speed);
+            features[3] = 1;
+            for (int row = 0; row < 4; row++) {
+                for (int column = 0; column < 4; column++) {
+                    normal[row][column] += features[row] * features[column];
+                }
+                normal[row][4] += features[row] * accel;
+            }
+            samples++;
+        }
+        if (samples < 4) {
+            throw new IllegalArgumentException("motor log has too few moving samples to fit a plant model");
+        }
+
+        double[] c = solve(normal);
+        if (!(c[0] > 0)) {
+            throw new IllegalArgumentException("motor log does not show the motor accelerating with power");
+        }
+
+        PlantModel model = new PlantModel(base);
+        model.inertia = base.stallTorque / c[0];
+        model.viscousFriction = Math.max(0, -c[1] * model.inertia - base.stallTorque / freeSpeed);
+        model.coulombFriction = Math.max(0, -c[2] * model.inertia);
+        model.gravityTorque = -c[3] * model.inertia;
+        return model;
+    }
+
+    /**
+     * Gaussian elimination with partial pivoting on an augmented matrix
+     */
+    private static double[] solve(double[][] m) {
+        int n = m.length;
+        for (int pivot = 0; pivot < n; pivot++) {
+            int best = pivot;
+            for (int row = pivot + 1; row < n; row++) {
+                if (Math.abs(m[row][pivot]) > Math.abs(m[best][pivot])) {
+                    best = row;
+                }
+            }
+            double[] swap = m[pivot];
+            m[pivot] = m[best];
+            m[best] = swap;
+
+            if (Math.abs(m[pivot][pivot]) < 1e-12) {
+                throw new IllegalArgumentException("motor log does not excite every plant parameter");
+            }
+            for (int row = pivot + 1; row < n; row++) {
+                double factor = m[row][pivot] / m[pivot][pivot];
+                for (int column = pivot; column <= n; column++) {
+                    m[row][column] -= factor * m[pivot][column];
+                }
+            }
+        }
+
+        double[] x = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = m[row][n];
+            for (int column = row + 1; column < n; column++) {
+                sum -= m[row][column] * x[column];
+            }
+            x[row] = sum / m[row][row];
+        }
+        return x;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlantModel(inertia=%.3g, viscous=%.3g, coulomb=%.3g, gravity=%.3g)",
+                inertia, viscousFriction, coulombFriction, gravityTorque);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.stuyfission.fissionlib.tuning;
+
+/**
+ * One combination of gains and constraints for a {@link com.stuyfission.fissionlib.motion.MotionProfiledDcMotor}
+ */
+public class TuningCandidate {
+
+    private final double kP;
+    private final double kI;
+    private final double kD;
+    private final double kF;
+    private final double maxVel;
+    private final double maxAccel;
+    private final double retractionMultiplier;
+
+    public TuningCandidate(double kP, double kI, double kD, double kF,
+                           double maxVel, double maxAccel, double retractionMultiplier) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.kF = kF;
+        this.maxVel = maxVel;
+        this.maxAccel = maxAccel;
+        this.retractionMultiplier = retractionMultiplier;
+    }
+
+    public double getKP() { return kP; }
+
+    public double getKI() { return kI; }
+
+    public double getKD() { return kD; }
+
+    public double getKF() { return kF; }
+
+    public double getMaxVel() { return maxVel; }
+
+    public double getMaxAccel() { return maxAccel; }
+
+    public double getRetractionMultiplier() { return retractionMultiplier; }
+
+    @Override
+    public String toString() {
+        return String.format("kP=%.4g kI=%.4g kD=%.4g kF=%.4g maxVel=%.4g maxAccel=%.4g retraction=%.3g",
+                kP, kI, kD, kF, maxVel, maxAccel, retractionMultiplier);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.stuyfission.fissionlib.tuning;
+
+/**
+ * Scores of one {@link TuningCandidate} over a {@link TuningScenario}. Every score is minimized.
+ */
+public class TuningResult {
+
+    private final TuningCandidate candidate;
+    private final double settleTime;
+    private final double overshoot;
+    private final double peakPower;
+    private final boolean settled;
+
+    /**
+     * @param settleTime total seconds until each move stayed within tolerance of its target
+     * @param overshoot largest distance past a target (inches)
+     * @param peakPower largest magnitude of the commanded power, above 1 when saturated
+     * @param settled whether every move settled before its time ran out
+     */
+    public TuningResult(TuningCandidate candidate, double settleTime, double overshoot, double peakPower, boolean settled) {
+        this.candidate = candidate;
+        this.settleTime = settleTime;
+        this.overshoot = overshoot;
+        this.peakPower = peakPower;
+        this.settled = settled;
+    }
+
+    public TuningCandidate getCandidate() { return candidate; }
+
+    public double getSettleTime() { return settleTime; }
+
+    public double getOvershoot() { return overshoot; }
+
+    public double getPeakPower() { return peakPower; }
+
+    public boolean isSettled() { return settled; }
+
+    /**
+     * @return whether this result is no worse than the other in every score and better in one
+     */
+    public boolean dominates(TuningResult other) {
+        return settleTime <= other.settleTime && overshoot <= other.overshoot && peakPower <= other.peakPower
+                && (settleTime < other.settleTime || overshoot < other.overshoot || peakPower < other.peakPower);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("settle=%.3fs overshoot=%.3fin peakPower=%.3f%s | %s",
+                settleTime, overshoot, peakPower, settled ? "" : " (unsettled)", candidate);
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.stuyfission.fissionlib.tuning;
+
+import com.stuyfission.fissionlib.motion.MotionProfiledDcMotor;
+import com.stuyfission.fissionlib.sim.Simulation;
+import com.stuyfission.fissionlib.sim.SimulatedDcMotorEx;
+
+import java.util.ArrayList;
+
+/**
+ * TuningScenario is the episode every candidate is scored on: a series of moves of a
+ * {@link MotionProfiledDcMotor}, starting from rest at 0, each given a fixed time to settle.
+ *
+ * Episodes share no state, so any number of them can be evaluated concurrently.
+ */
+public class TuningScenario {
+
+    private static final double DEFAULT_LOOP_PERIOD = 0.01;
+    private static final int DEFAULT_SUBSTEPS = 4;
+    private static final double DEFAULT_SETTLE_TOLERANCE = 0.25;
+
+    private final double wheelRadius;
+    private final double gearRatio;
+    private final double ticksPerRev;
+    private final ArrayList<double[]> moves = new ArrayList<>();
+
+    private double loopPeriod = DEFAULT_LOOP_PERIOD;
+    private int substeps = DEFAULT_SUBSTEPS;
+    private double settleTolerance = DEFAULT_SETTLE_TOLERANCE;
+
+    /**
+     * Wheel constants are those passed to
+     * {@link MotionProfiledDcMotor#setWheelConstants(double, double, double)} on the robot
+     */
+    public TuningScenario(double wheelRadius, double gearRatio, double ticksPerRev) {
+        this.wheelRadius = wheelRadius;
+        this.gearRatio = gearRatio;
+        this.ticksPerRev = ticksPerRev;
+    }
+
+    /**
+     * @param target position to move to (inches)
+     * @param seconds time given to the move before the next one starts
+     */
+    public TuningScenario addMove(double target, double seconds) {
+        moves.add(new double[] {target, seconds});
+        return this;
+    }
+
+    /**
+     * @param loopPeriod simulated seconds per loop, match the robot's loop time
+     */
+    public TuningScenario setLoopPeriod(double loopPeriod) {
+        this.loopPeriod = loopPeriod;
+        return this;
+    }
+
+    public TuningScenario setSubsteps(int substeps) {
+        this.substeps = substeps;
+        return this;
+    }
+
+    /**
+     * @param settleTolerance distance from the target a move counts as settled within (inches)
+     */
+    public TuningScenario setSettleTolerance(double settleTolerance) {
+        this.settleTolerance = settleTolerance;
+        return this;
+    }
+
+    /**
+     * Runs one simulation episode of the candidate on a fresh motor
+     */
+    public TuningResult evaluate(PlantModel plant, TuningCandidate candidate) {
+        if (moves.isEmpty()) {
+            throw new IllegalStateException("tuning scenario has no moves");
+        }
+
+        SimulatedDcMotorEx motor = plant.createMotor();
+        Simulation sim = new Simulation(loopPeriod, substeps).addMotor(motor);
+
+        MotionProfiledDcMotor profiledMotor = new MotionProfiledDcMotor(motor);
+        profiledMotor.setClock(sim.getClock());
+        profiledMotor.setWheelConstants(wheelRadius, gearRatio, ticksPerRev);
+        profiledMotor.setMotionConstraints(candidate.getMaxVel(), candidate.getMaxAccel());
+        profiledMotor.setRetractionMultiplier(candidate.getRetractionMultiplier());
+        profiledMotor.setPIDCoefficients(candidate.getKP(), candidate.getKI(), candidate.getKD(), candidate.getKF());
+        sim.addLoop(profiledMotor::update);
+
+        double settleTime = 0;
+        double overshoot = 0;
+        double peakPower = 0;
+        boolean settled = true;
+
+        for (int i = 0; i < moves.size(); i++) {
+            double target = moves.get(i)[0];
+            double seconds = moves.get(i)[1];
+            double direction = target >= profiledMotor.getPosition() ? 1 : -1;
+            profiledMotor.setTargetPosition(target);
+
+            int steps = (int) Math.ceil(seconds / loopPeriod);
+            double lastOutside = 0;
+            for (int step = 1; step <= steps; step++) {
+                sim.step();
+                double error = profiledMotor.getPosition() - target;
+                if (Math.abs(error) > settleTolerance) {
+                    lastOutside = step * loopPeriod;
+                }
+                overshoot = Math.max(overshoot, direction * error);
+                peakPower = Math.max(peakPower, Math.abs(profiledMotor.getPower()));
+            }
+
+            if (lastOutside >= steps * loopPeriod) {
+                settled = false;
+            }
+            settleTime += lastOutside;
+        }
+
+        return new TuningResult(candidate, settleTime, overshoot, peakPower, settled);
+    }
+
+}
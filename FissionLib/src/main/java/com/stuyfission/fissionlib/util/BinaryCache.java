@@ -0,0 +1,116 @@
+package com.stuyfission.fissionlib.util;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * BinaryCache stores precomputed values such as trajectories and profiles on local storage, one
+ * file per key, so the next OpMode init can load them instead of generating them again.
+ *
+ * Files are written to a temporary file and renamed, so a reader never sees half a value. Files
+ * that are corrupt or truncated, or were written by another codec version, are treated as missing.
+ * Codecs should read array lengths with {@link Codec#readLength(DataInput, int)} so a corrupt
+ * length is rejected instead of allocated. Keys should
+ * change whenever the inputs of a value change.
+ */
+public class BinaryCache {
+
+    private static final int MAGIC = 0x46434143;
+
+    private final File directory;
+
+    /**
+     * Uses FIRST/FissionLib/cache on the robot's storage
+     */
+    public BinaryCache() {
+        this(new File(AppUtil.FIRST_FOLDER, "FissionLib/cache"));
+    }
+
+    public BinaryCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() { return directory; }
+
+    private File file(String key) {
+        StringBuilder name = new StringBuilder(key.length() + 16);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            name.append(safe ? c : '_');
+        }
+        // keys that sanitize to the same name still get their own file
+        name.append('-').append(Integer.toHexString(key.hashCode())).append(".bin");
+        return new File(directory, name.toString());
+    }
+
+    /**
+     * @return the cached value, or null if there is no valid entry for the key
+     */
+    public <T> T load(String key, Codec<T> codec) {
+        File file = file(key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != codec.version() || !in.readUTF().equals(key)) {
+                return null;
+            }
+            return codec.read(in);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the value was written
+     */
+    public <T> boolean store(String key, Codec<T> codec, T value) {
+        File file = file(key);
+        File temporary = new File(directory, file.getName() + ".tmp");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return false;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(codec.version());
+            out.writeUTF(key);
+            codec.write(out, value);
+        } catch (IOException e) {
+            temporary.delete();
+            return false;
+        }
+        return temporary.renameTo(file) || (file.delete() && temporary.renameTo(file));
+    }
+
+    public boolean remove(String key) {
+        return file(key).delete();
+    }
+
+    /**
+     * Deletes every cached value
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(".bin") || file.getName().endsWith(".tmp")) {
+                file.delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.stuyfission.fissionlib.util;
+
+/**
+ * Source of monotonic time in nanoseconds. Library classes that measure time take a Clock so they
+ * can be driven by a virtual clock off the robot.
+ */
+@FunctionalInterface
+public interface Clock {
+
+    Clock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+
+    default double seconds() { return nanoTime() * 1e-9; }
+
+}
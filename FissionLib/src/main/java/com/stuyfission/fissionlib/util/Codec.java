@@ -0,0 +1,56 @@
+package com.stuyfission.fissionlib.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Compact binary form of a value, used by {@link BinaryCache}. Change {@link #version()} whenever
+ * the format changes so stale cache files are ignored.
+ */
+public interface Codec<T> {
+
+    Codec<double[]> DOUBLES = new Codec<double[]>() {
+        @Override
+        public void write(DataOutput out, double[] value) throws IOException {
+            out.writeInt(value.length);
+            for (double v : value) {
+                out.writeDouble(v);
+            }
+        }
+
+        @Override
+        public double[] read(DataInput in) throws IOException {
+            double[] value = new double[readLength(in, 8)];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = in.readDouble();
+            }
+            return value;
+        }
+    };
+
+    void write(DataOutput out, T value) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    default int version() { return 1; }
+
+    /**
+     * Reads an array length written with {@link DataOutput#writeInt(int)}, checked against the
+     * bytes left in the input so a corrupt file cannot trigger a huge allocation
+     *
+     * @param elementBytes encoded size of one element
+     * @throws IOException if the length is negative or the input cannot hold that many elements
+     */
+    static int readLength(DataInput in, int elementBytes) throws IOException {
+        int length = in.readInt();
+        // inputs that cannot report what is left are capped at 16M elements
+        long limit = in instanceof InputStream ? ((InputStream) in).available() / elementBytes : 1 << 24;
+        if (length < 0 || length > limit) {
+            throw new IOException("invalid length " + length);
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.stuyfission.fissionlib.util;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.hardware.HardwareCycle;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * InstrumentedMechanism wraps a {@link Mechanism} and records the wall time of every init, loop
+ * and telemetry call, plus the hardware calls made during them, into a {@link MechanismStats}.
+ *
+ * Use it wherever the wrapped mechanism would be used. When disabled, calls are forwarded without
+ * timing.
+ */
+public class InstrumentedMechanism extends Mechanism {
+
+    private final Mechanism mechanism;
+    private final MechanismStats stats;
+    private boolean enabled = true;
+
+    public InstrumentedMechanism(Mechanism mechanism) {
+        this.mechanism = mechanism;
+        this.stats = new MechanismStats(nameOf(mechanism));
+    }
+
+    /**
+     * @return simple class name of the mechanism, looking through any instrumentation wrapper
+     */
+    static String nameOf(Mechanism mechanism) {
+        while (mechanism instanceof InstrumentedMechanism) {
+            mechanism = ((InstrumentedMechanism) mechanism).getMechanism();
+        }
+        return mechanism.getClass().getSimpleName();
+    }
+
+    public Mechanism getMechanism() { return mechanism; }
+
+    public MechanismStats getStats() { return stats; }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isEnabled() { return enabled; }
+
+    @Override
+    public void setHardwareCycle(HardwareCycle hardwareCycle) {
+        super.setHardwareCycle(hardwareCycle);
+        mechanism.setHardwareCycle(hardwareCycle);
+    }
+
+    @Override
+    public double getLoopPeriod() { return mechanism.getLoopPeriod(); }
+
+    @Override
+    public int getPriority() { return mechanism.getPriority(); }
+
+    @Override
+    public void init(HardwareMap hwMap) {
+        if (!enabled) {
+            mechanism.init(hwMap);
+            return;
+        }
+        MechanismStats previous = MechanismStats.enter(stats);
+        long start = System.nanoTime();
+        try {
+            mechanism.init(hwMap);
+        } finally {
+            stats.getInit().record(System.nanoTime() - start);
+            MechanismStats.exit(previous);
+        }
+    }
+
+    @Override
+    public void loop(Gamepad gamepad) {
+        if (!enabled) {
+            mechanism.loop(gamepad);
+            return;
+        }
+        MechanismStats previous = MechanismStats.enter(stats);
+        long start = System.nanoTime();
+        try {
+            mechanism.loop(gamepad);
+        } finally {
+            stats.getLoop().record(System.nanoTime() - start);
+            MechanismStats.exit(previous);
+        }
+    }
+
+    @Override
+    public void loop(Gamepad gamepad1, Gamepad gamepad2) {
+        if (!enabled) {
+            mechanism.loop(gamepad1, gamepad2);
+            return;
+        }
+        MechanismStats previous = MechanismStats.enter(stats);
+        long start = System.nanoTime();
+        try {
+            mechanism.loop(gamepad1, gamepad2);
+        } finally {
+            stats.getLoop().record(System.nanoTime() - start);
+            MechanismStats.exit(previous);
+        }
+    }
+
+    @Override
+    public void telemetry(Telemetry telemetry) {
+        if (!enabled) {
+            mechanism.telemetry(telemetry);
+            return;
+        }
+        MechanismStats previous = MechanismStats.enter(stats);
+        long start = System.nanoTime();
+        try {
+            mechanism.telemetry(telemetry);
+        } finally {
+            stats.getTelemetry().record(System.nanoTime() - start);
+            MechanismStats.exit(previous);
+        }
+    }
+
+}
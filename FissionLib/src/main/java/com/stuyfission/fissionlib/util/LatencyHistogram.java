@@ -0,0 +1,81 @@
+package com.stuyfission.fissionlib.util;
+
+/**
+ * LatencyHistogram records durations in nanoseconds into fixed log-linear buckets (four buckets
+ * per power of two, so at most 25% relative error). Recording is a couple of bit operations and
+ * an array increment; percentiles are only computed when read.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 248;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long max;
+    private long total;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < 4) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 2)) & 3;
+        return ((exponent - 1) << 2) | sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = (bucket >>> 2) + 1;
+        int sub = bucket & 3;
+        return ((5L + sub) << (exponent - 2)) - 1;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return upper bound of the bucket holding that percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return count; }
+
+    public long getMax() { return max; }
+
+    public double getMean() { return count == 0 ? 0 : (double) total / count; }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = 0;
+        }
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+}
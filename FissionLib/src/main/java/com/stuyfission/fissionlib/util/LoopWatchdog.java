@@ -0,0 +1,221 @@
+package com.stuyfission.fissionlib.util;
+
+import com.stuyfission.fissionlib.log.FlightRecorder;
+import com.stuyfission.fissionlib.telemetry.TelemetryPipeline;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+
+/**
+ * LoopWatchdog measures every loop against a target period and sheds optional work while the loop
+ * keeps overrunning, so motion profiles and PID loops stay sampled on time.
+ *
+ * Shedding follows a policy of ordered steps, cheapest to lose first. After a run of consecutive
+ * overruns the next step is shed; after a run of loops comfortably under the period the last shed
+ * step is restored. Waiting for a run in both directions keeps a single spike from toggling work.
+ */
+public class LoopWatchdog {
+
+    /**
+     * Optional work that can be paused while the loop overruns
+     */
+    @FunctionalInterface
+    public interface LoadShedder {
+        void setShedding(boolean shedding);
+    }
+
+    private static final int DEFAULT_SHED_AFTER = 3;
+    private static final int DEFAULT_RESTORE_AFTER = 50;
+    private static final double DEFAULT_RESTORE_MARGIN = 0.8;
+
+    private final Clock clock;
+    private final long periodNanos;
+    private final ArrayList<String> stepNames = new ArrayList<>();
+    private final ArrayList<LoadShedder> steps = new ArrayList<>();
+    private final LatencyHistogram periods = new LatencyHistogram();
+
+    private int shedAfter = DEFAULT_SHED_AFTER;
+    private int restoreAfter = DEFAULT_RESTORE_AFTER;
+    private double restoreMargin = DEFAULT_RESTORE_MARGIN;
+
+    private long cycleStart;
+    private long lastPeriod;
+    private long cycles;
+    private long overruns;
+    private int overrunStreak;
+    private int healthyStreak;
+    private int shedLevel;
+    private long shedEvents;
+
+    /**
+     * @param targetPeriod seconds each loop should take at most
+     */
+    public LoopWatchdog(double targetPeriod) {
+        this(targetPeriod, Clock.SYSTEM);
+    }
+
+    public LoopWatchdog(double targetPeriod, Clock clock) {
+        this.periodNanos = (long) (targetPeriod * 1e9);
+        this.clock = clock;
+    }
+
+    /**
+     * Adds the next step of the shedding policy, shed after every step added before it
+     */
+    public LoopWatchdog addStep(String name, LoadShedder shedder) {
+        stepNames.add(name);
+        steps.add(shedder);
+        return this;
+    }
+
+    public LoopWatchdog shedTelemetry(TelemetryPipeline pipeline) {
+        return addStep("telemetry", shedding -> pipeline.setEnabled(!shedding));
+    }
+
+    /**
+     * Defers periodic mechanisms below the priority, restoring the scheduler's previous minimum
+     * priority afterwards
+     */
+    public LoopWatchdog shedMechanismsBelow(MechanismScheduler scheduler, int priority) {
+        int[] previous = new int[1];
+        return addStep("mechanisms < " + priority, shedding -> {
+            if (shedding) {
+                previous[0] = scheduler.getMinPriority();
+                scheduler.setMinPriority(Math.max(priority, previous[0]));
+            } else {
+                scheduler.setMinPriority(previous[0]);
+            }
+        });
+    }
+
+    public LoopWatchdog shedFlightRecorder(FlightRecorder recorder) {
+        return addStep("flight recorder", shedding -> recorder.setEnabled(!shedding));
+    }
+
+    public LoopWatchdog shedProfiler(MechanismProfiler profiler) {
+        return addStep("profiler", shedding -> profiler.setEnabled(!shedding));
+    }
+
+    /**
+     * @param overruns consecutive overruns before the next step is shed, 3 by default
+     * @param healthyLoops consecutive loops under the restore margin before a step is restored,
+     *                     50 by default
+     * @param margin fraction of the target period a loop must stay under to count as healthy,
+     *               0.8 by default
+     */
+    public LoopWatchdog setHysteresis(int overruns, int healthyLoops, double margin) {
+        this.shedAfter = overruns;
+        this.restoreAfter = healthyLoops;
+        this.restoreMargin = margin;
+        return this;
+    }
+
+    /**
+     * Ends the previous loop and starts the next one, call once at the top of every loop
+     *
+     * @return seconds the previous loop took, 0 on the first call
+     */
+    public double cycle() {
+        long now = clock.nanoTime();
+        if (cycles++ == 0) {
+            cycleStart = now;
+            return 0;
+        }
+
+        long period = now - cycleStart;
+        cycleStart = now;
+        lastPeriod = period;
+        periods.record(period);
+
+        if (period > periodNanos) {
+            overruns++;
+            overrunStreak++;
+            healthyStreak = 0;
+            if (overrunStreak >= shedAfter && shedLevel < steps.size()) {
+                steps.get(shedLevel++).setShedding(true);
+                shedEvents++;
+                overrunStreak = 0;
+            }
+        } else {
+            overrunStreak = 0;
+            if (period < periodNanos * restoreMargin) {
+                healthyStreak++;
+                if (healthyStreak >= restoreAfter && shedLevel > 0) {
+                    steps.get(--shedLevel).setShedding(false);
+                    healthyStreak = 0;
+                }
+            } else {
+                healthyStreak = 0;
+            }
+        }
+        return period * 1e-9;
+    }
+
+    /**
+     * @return seconds left before the current loop overruns, negative once it has
+     */
+    public double getRemainingTime() {
+        return (periodNanos - (clock.nanoTime() - cycleStart)) * 1e-9;
+    }
+
+    /**
+     * Lets optional work run only when it fits in what is left of the current loop
+     *
+     * @param seconds expected duration of the work
+     */
+    public boolean hasTimeFor(double seconds) {
+        return getRemainingTime() >= seconds;
+    }
+
+    /**
+     * Restores every shed step and clears the counters
+     */
+    public void reset() {
+        while (shedLevel > 0) {
+            steps.get(--shedLevel).setShedding(false);
+        }
+        cycles = 0;
+        overruns = 0;
+        overrunStreak = 0;
+        healthyStreak = 0;
+        shedEvents = 0;
+        lastPeriod = 0;
+        periods.reset();
+    }
+
+    public double getTargetPeriod() { return periodNanos * 1e-9; }
+
+    public double getLastPeriod() { return lastPeriod * 1e-9; }
+
+    public long getCycles() { return cycles; }
+
+    /**
+     * @return loops that took longer than the target period
+     */
+    public long getOverruns() { return overruns; }
+
+    /**
+     * @return number of steps currently shed
+     */
+    public int getShedLevel() { return shedLevel; }
+
+    public boolean isShedding() { return shedLevel > 0; }
+
+    /**
+     * @return times a step was shed
+     */
+    public long getShedEvents() { return shedEvents; }
+
+    public String getStepName(int step) { return stepNames.get(step); }
+
+    public LatencyHistogram getPeriods() { return periods; }
+
+    public void telemetry(Telemetry telemetry) {
+        telemetry.addData("loop", "%.1f ms (p99 %.1f, max %.1f) / %.1f ms target",
+                lastPeriod * 1e-6, periods.getPercentile(0.99) * 1e-6, periods.getMax() * 1e-6, periodNanos * 1e-6);
+        telemetry.addData("overruns", "%d of %d", overruns, cycles);
+        telemetry.addData("shedding", shedLevel == 0 ? "none" : stepNames.subList(0, shedLevel).toString());
+    }
+
+}
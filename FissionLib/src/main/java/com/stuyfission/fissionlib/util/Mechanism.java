@@ -3,6 +3,7 @@ package com.stuyfission.fissionlib.util;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.hardware.Gamepad;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.hardware.HardwareCycle;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 
@@ -25,6 +26,22 @@ public abstract class Mechanism {
      */
     protected LinearOpMode opMode;
 
+    /**
+     * Hardware cycle shared by all mechanisms, null when bulk caching is not used.
+     * Pass it to any {@link com.stuyfission.fissionlib.motion.MotionProfiledDcMotor} created in
+     * {@link #init(HardwareMap)}.
+     */
+    protected HardwareCycle hardwareCycle;
+
+    /**
+     * Shares a hardware cycle with this mechanism, call before {@link #init(HardwareMap)}
+     *
+     * @param hardwareCycle cycle started once per loop by the OpMode
+     */
+    public void setHardwareCycle(HardwareCycle hardwareCycle) {
+        this.hardwareCycle = hardwareCycle;
+    }
+
     /**
      * Initializes hardware on the robot. Gets and stores references to the robot configuration and
      * sets motors and servos to their starting positions.
@@ -50,6 +67,22 @@ public abstract class Mechanism {
      */
     public void loop(Gamepad gamepad1, Gamepad gamepad2) { }
 
+    /**
+     * Seconds between loop calls when run by a {@link MechanismScheduler}. Override for slow
+     * mechanisms such as LEDs or distance sensors.
+     *
+     * @return loop period, 0 to loop every cycle
+     */
+    public double getLoopPeriod() { return 0; }
+
+    /**
+     * Priority when run by a {@link MechanismScheduler}: higher priorities loop first and are the
+     * last to be deferred
+     *
+     * @return priority
+     */
+    public int getPriority() { return 0; }
+
     /**
      * Manages all telemetry data to driver phone or FTC Dashboard
      *
@@ -0,0 +1,49 @@
+package com.stuyfission.fissionlib.util;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+
+/**
+ * MechanismProfiler keeps track of instrumented mechanisms and reports their stats together,
+ * through a regular Telemetry or a MultipleTelemetry that also targets FTC Dashboard.
+ */
+public class MechanismProfiler {
+
+    private final ArrayList<InstrumentedMechanism> mechanisms = new ArrayList<>();
+
+    /**
+     * Wraps a mechanism and registers it with this profiler
+     *
+     * @return the instrumented mechanism, to be used in place of the original
+     */
+    public InstrumentedMechanism instrument(Mechanism mechanism) {
+        InstrumentedMechanism instrumented = new InstrumentedMechanism(mechanism);
+        mechanisms.add(instrumented);
+        return instrumented;
+    }
+
+    public ArrayList<InstrumentedMechanism> getMechanisms() { return mechanisms; }
+
+    public void setEnabled(boolean enabled) {
+        for (int i = 0; i < mechanisms.size(); i++) {
+            mechanisms.get(i).setEnabled(enabled);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < mechanisms.size(); i++) {
+            mechanisms.get(i).getStats().reset();
+        }
+    }
+
+    /**
+     * Adds one line per mechanism, see {@link MechanismStats#telemetry(Telemetry)}
+     */
+    public void telemetry(Telemetry telemetry) {
+        for (int i = 0; i < mechanisms.size(); i++) {
+            mechanisms.get(i).getStats().telemetry(telemetry);
+        }
+    }
+
+}
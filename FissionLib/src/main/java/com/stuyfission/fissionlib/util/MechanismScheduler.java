@@ -0,0 +1,206 @@
+package com.stuyfission.fissionlib.util;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+
+/**
+ * MechanismScheduler runs every registered {@link Mechanism} at its own rate from one robot loop.
+ *
+ * Mechanisms with a period of 0 loop every cycle. Slower mechanisms are staggered: mechanisms that
+ * share a period start at evenly spaced phase offsets, and at most
+ * {@link #setMaxDeferrablePerCycle(int)} of them run in the same cycle (highest priority first,
+ * the rest stay due for the next cycle), so slow work is spread out instead of piling up on one
+ * loop. A mechanism that has been due for a whole period runs regardless of that limit, so no
+ * mechanism ever waits more than two of its periods even when more are due than the limit allows.
+ */
+public class MechanismScheduler {
+
+    /**
+     * Scheduling state and rate accounting for one mechanism
+     */
+    public static class Entry {
+
+        private final Mechanism mechanism;
+        private final long periodNanos;
+        private final int priority;
+        private long nextRun;
+        private long lastRun;
+        private long runs;
+        private long deferrals;
+        private double averageInterval;
+
+        Entry(Mechanism mechanism, long periodNanos, int priority) {
+            this.mechanism = mechanism;
+            this.periodNanos = periodNanos;
+            this.priority = priority;
+        }
+
+        public Mechanism getMechanism() { return mechanism; }
+
+        public double getTargetRate() { return periodNanos == 0 ? Double.POSITIVE_INFINITY : 1e9 / periodNanos; }
+
+        /**
+         * @return measured loops per second, averaged over recent runs
+         */
+        public double getActualRate() { return averageInterval == 0 ? 0 : 1e9 / averageInterval; }
+
+        public int getPriority() { return priority; }
+
+        public long getRuns() { return runs; }
+
+        /**
+         * @return cycles in which the mechanism was due but pushed to a later cycle
+         */
+        public long getDeferrals() { return deferrals; }
+    }
+
+    private static final double RATE_SMOOTHING = 0.1;
+
+    private final Clock clock;
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private boolean phased;
+    private int maxDeferrablePerCycle = 1;
+    private int minPriority = Integer.MIN_VALUE;
+    private long cycles;
+
+    public MechanismScheduler() {
+        this(Clock.SYSTEM);
+    }
+
+    public MechanismScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Registers a mechanism with its declared {@link Mechanism#getLoopPeriod()} and
+     * {@link Mechanism#getPriority()}
+     */
+    public MechanismScheduler register(Mechanism mechanism) {
+        return register(mechanism, mechanism.getLoopPeriod(), mechanism.getPriority());
+    }
+
+    /**
+     * @param mechanism mechanism to loop
+     * @param periodSeconds seconds between loops, 0 to loop every cycle
+     * @param priority higher loops first and is deferred last
+     */
+    public MechanismScheduler register(Mechanism mechanism, double periodSeconds, int priority) {
+        Entry entry = new Entry(mechanism, (long) (periodSeconds * 1e9), priority);
+
+        int i = 0;
+        while (i < entries.size() && entries.get(i).priority >= priority) {
+            i++;
+        }
+        entries.add(i, entry);
+        phased = false;
+        return this;
+    }
+
+    /**
+     * @param max number of periodic mechanisms allowed to loop in one cycle, higher priority first.
+     *            Mechanisms overdue by a whole period are not held back by this limit.
+     */
+    public void setMaxDeferrablePerCycle(int max) { this.maxDeferrablePerCycle = max; }
+
+    /**
+     * Skips every periodic mechanism below this priority until it is lowered again, used to shed
+     * load when the loop overruns
+     */
+    public void setMinPriority(int minPriority) { this.minPriority = minPriority; }
+
+    public int getMinPriority() { return minPriority; }
+
+    public ArrayList<Entry> getEntries() { return entries; }
+
+    public long getCycles() { return cycles; }
+
+    /**
+     * Spreads mechanisms that share a period evenly over that period
+     */
+    private void assignPhases(long now) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int count = 0;
+            int index = 0;
+            for (int j = 0; j < entries.size(); j++) {
+                if (entries.get(j).periodNanos == entry.periodNanos) {
+                    if (j < i) {
+                        index++;
+                    }
+                    count++;
+                }
+            }
+            entry.nextRun = now + (entry.periodNanos == 0 ? 0 : entry.periodNanos * index / count);
+        }
+        phased = true;
+    }
+
+    public void loop(Gamepad gamepad) {
+        loop(gamepad, null);
+    }
+
+    /**
+     * Runs one robot cycle: every mechanism that is due, in priority order
+     *
+     * @param gamepad1 first gamepad
+     * @param gamepad2 second gamepad, null to call {@link Mechanism#loop(Gamepad)} instead of
+     *                 {@link Mechanism#loop(Gamepad, Gamepad)}
+     */
+    public void loop(Gamepad gamepad1, Gamepad gamepad2) {
+        long now = clock.nanoTime();
+        if (!phased) {
+            assignPhases(now);
+        }
+        cycles++;
+
+        int periodicRun = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (now - entry.nextRun < 0) {
+                continue;
+            }
+
+            if (entry.periodNanos > 0) {
+                boolean overdue = now - entry.nextRun >= entry.periodNanos;
+                if (entry.priority < minPriority || (periodicRun >= maxDeferrablePerCycle && !overdue)) {
+                    entry.deferrals++;
+                    continue;
+                }
+                periodicRun++;
+                // keep the phase, skipping periods that were missed entirely
+                long missed = (now - entry.nextRun) / entry.periodNanos;
+                entry.nextRun += (missed + 1) * entry.periodNanos;
+            }
+
+            if (gamepad2 == null) {
+                entry.mechanism.loop(gamepad1);
+            } else {
+                entry.mechanism.loop(gamepad1, gamepad2);
+            }
+
+            if (entry.runs > 0) {
+                double interval = now - entry.lastRun;
+                entry.averageInterval = entry.averageInterval == 0
+                        ? interval
+                        : entry.averageInterval + RATE_SMOOTHING * (interval - entry.averageInterval);
+            }
+            entry.lastRun = now;
+            entry.runs++;
+        }
+    }
+
+    /**
+     * Adds one line per mechanism with its target and measured loop rate
+     */
+    public void telemetry(Telemetry telemetry) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            telemetry.addData(InstrumentedMechanism.nameOf(entry.mechanism),
+                    "%.1f / %.1f Hz, %d deferred", entry.getActualRate(), entry.getTargetRate(), entry.deferrals);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.stuyfission.fissionlib.util;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing and hardware call counts for a single {@link Mechanism}, filled in by
+ * {@link InstrumentedMechanism}.
+ */
+public class MechanismStats {
+
+    /**
+     * Stats of the mechanism currently running on each thread, null outside instrumented calls.
+     * Per thread because {@link RobotContainer} initializes mechanisms in parallel.
+     */
+    private static final ThreadLocal<MechanismStats> current = new ThreadLocal<>();
+
+    private final String name;
+    private final LatencyHistogram init = new LatencyHistogram();
+    private final LatencyHistogram loop = new LatencyHistogram();
+    private final LatencyHistogram telemetry = new LatencyHistogram();
+    private final AtomicLong hardwareCalls = new AtomicLong();
+
+    public MechanismStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Attributes one hub transaction to the mechanism that is currently running on this thread.
+     * Called by library hardware wrappers such as
+     * {@link com.stuyfission.fissionlib.motion.MotionProfiledDcMotor}.
+     */
+    public static void recordHardwareCall() {
+        MechanismStats stats = current.get();
+        if (stats != null) {
+            stats.hardwareCalls.incrementAndGet();
+        }
+    }
+
+    static MechanismStats enter(MechanismStats stats) {
+        MechanismStats previous = current.get();
+        current.set(stats);
+        return previous;
+    }
+
+    static void exit(MechanismStats previous) {
+        current.set(previous);
+    }
+
+    public String getName() { return name; }
+
+    public LatencyHistogram getInit() { return init; }
+
+    public LatencyHistogram getLoop() { return loop; }
+
+    public LatencyHistogram getTelemetry() { return telemetry; }
+
+    public long getHardwareCalls() { return hardwareCalls.get(); }
+
+    public void reset() {
+        init.reset();
+        loop.reset();
+        telemetry.reset();
+        hardwareCalls.set(0);
+    }
+
+    /**
+     * Adds one line with loop and telemetry p50/p99/max (ms) and hardware calls per loop
+     */
+    public void telemetry(Telemetry telemetry) {
+        long loops = loop.getCount();
+        telemetry.addData(name, "loop %.2f/%.2f/%.2f tel %.2f/%.2f/%.2f ms, hw %.1f/loop",
+                loop.getPercentile(0.5) * 1e-6, loop.getPercentile(0.99) * 1e-6, loop.getMax() * 1e-6,
+                this.telemetry.getPercentile(0.5) * 1e-6, this.telemetry.getPercentile(0.99) * 1e-6,
+                this.telemetry.getMax() * 1e-6,
+                loops == 0 ? 0.0 : (double) hardwareCalls.get() / loops);
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.stuyfission.fissionlib.util;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * RobotContainer initializes a robot's mechanisms in parallel. Each {@link Mechanism#init(HardwareMap)}
+ * runs on a bounded pool as soon as the mechanisms it depends on are initialized, so slow setup such
+ * as IMU calibration or hub writes on different hubs overlaps instead of adding up.
+ *
+ * <pre>
+ * RobotContainer robot = new RobotContainer()
+ *         .add(drivetrain)
+ *         .add(slides)
+ *         .add(scoring, slides);
+ * robot.init(hardwareMap);
+ * </pre>
+ *
+ * Mechanisms must not touch another mechanism's hardware in init unless they declare it as a
+ * dependency.
+ */
+public class RobotContainer {
+
+    private static final int DEFAULT_THREADS = 4;
+
+    private final int threads;
+    private final ArrayList<Mechanism> mechanisms = new ArrayList<>();
+    private final ArrayList<Mechanism[]> dependencies = new ArrayList<>();
+    private final IdentityHashMap<Mechanism, Integer> indices = new IdentityHashMap<>();
+
+    private long[] initNanos = new long[0];
+    private long totalInitNanos;
+
+    public RobotContainer() {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads maximum number of mechanisms initialized at the same time
+     */
+    public RobotContainer(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Registers a mechanism
+     *
+     * @param mechanism mechanism to initialize
+     * @param dependencies mechanisms that must be initialized first, registered before this one
+     */
+    public RobotContainer add(Mechanism mechanism, Mechanism... dependencies) {
+        if (indices.containsKey(mechanism)) {
+            throw new IllegalArgumentException(name(mechanism) + " is already registered");
+        }
+        for (Mechanism dependency : dependencies) {
+            if (!indices.containsKey(dependency)) {
+                throw new IllegalArgumentException(name(mechanism) + " depends on " + name(dependency)
+                        + ", which must be registered first");
+            }
+        }
+        indices.put(mechanism, mechanisms.size());
+        mechanisms.add(mechanism);
+        this.dependencies.add(dependencies.clone());
+        return this;
+    }
+
+    public ArrayList<Mechanism> getMechanisms() { return mechanisms; }
+
+    /**
+     * Initializes every mechanism, returning once all are done. Dependencies always come before
+     * their dependents since they are registered first.
+     *
+     * @throws RuntimeException the first failure of a mechanism's init, after the others finished
+     */
+    public void init(HardwareMap hwMap) {
+        int count = mechanisms.size();
+        long[] nanos = new long[count];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, count)), runnable -> {
+            Thread thread = new Thread(runnable, "RobotContainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] futures = new CompletableFuture[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                Mechanism mechanism = mechanisms.get(i);
+                int index = i;
+
+                Mechanism[] required = dependencies.get(i);
+                CompletableFuture<?>[] ready = new CompletableFuture<?>[required.length];
+                for (int j = 0; j < required.length; j++) {
+                    ready[j] = futures[indices.get(required[j])];
+                }
+
+                futures[i] = CompletableFuture.allOf(ready).thenRunAsync(() -> {
+                    long mechanismStart = System.nanoTime();
+                    mechanism.init(hwMap);
+                    nanos[index] = System.nanoTime() - mechanismStart;
+                }, executor);
+            }
+
+            RuntimeException failure = null;
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        Throwable cause = e.getCause();
+                        failure = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
+            totalInitNanos = System.nanoTime() - start;
+            initNanos = nanos;
+        }
+    }
+
+    /**
+     * @return seconds the mechanism's init took, 0 if it was not initialized
+     */
+    public double getInitTime(Mechanism mechanism) {
+        Integer index = indices.get(mechanism);
+        return index == null || index >= initNanos.length ? 0 : initNanos[index] * 1e-9;
+    }
+
+    /**
+     * @return wall clock seconds the last {@link #init(HardwareMap)} took
+     */
+    public double getTotalInitTime() { return totalInitNanos * 1e-9; }
+
+    /**
+     * Adds one line per mechanism with its init time
+     */
+    public void telemetry(Telemetry telemetry) {
+        for (int i = 0; i < mechanisms.size(); i++) {
+            telemetry.addData(name(mechanisms.get(i)) + " init", "%.1f ms",
+                    i < initNanos.length ? initNanos[i] * 1e-6 : 0.0);
+        }
+        telemetry.addData("total init", "%.1f ms", totalInitNanos * 1e-6);
+    }
+
+    private static String name(Mechanism mechanism) {
+        return InstrumentedMechanism.nameOf(mechanism);
+    }
+
+}
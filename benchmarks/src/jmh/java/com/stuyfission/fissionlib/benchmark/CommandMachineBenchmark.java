@@ -0,0 +1,94 @@
+package com.stuyfission.fissionlib.benchmark;
+
+import com.stuyfission.fissionlib.benchmark.fake.FakeGamepad;
+import com.stuyfission.fissionlib.command.AutoCommandMachine;
+import com.stuyfission.fissionlib.command.CommandMachine;
+import com.stuyfission.fissionlib.command.CommandSequence;
+import com.stuyfission.fissionlib.input.GamepadSnapshot;
+import com.stuyfission.fissionlib.input.GamepadStatic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One loop iteration of each machine over cooperative sequences of instant commands
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandMachineBenchmark {
+
+    private static final int SEQUENCES = 8;
+    private static final int REACTIVE_SEQUENCES = 64;
+
+    private FakeGamepad gamepad;
+    private GamepadSnapshot snapshot;
+    private CommandMachine commandMachine;
+    private CommandMachine reactiveCommandMachine;
+    private AutoCommandMachine autoCommandMachine;
+    private int counter;
+
+    private CommandSequence sequence() {
+        return new CommandSequence()
+                .addCommand(() -> counter++)
+                .addCommand(() -> counter--)
+                .cooperative()
+                .build();
+    }
+
+    @Setup
+    public void setup() {
+        gamepad = new FakeGamepad();
+
+        commandMachine = new CommandMachine();
+        autoCommandMachine = new AutoCommandMachine();
+        GamepadStatic.Input[] inputs = { GamepadStatic.Input.A, GamepadStatic.Input.B, GamepadStatic.Input.DPAD_UP };
+        for (int i = 0; i < SEQUENCES; i++) {
+            commandMachine.addCommandSequence(sequence(), inputs[i % inputs.length]);
+            autoCommandMachine.addCommandSequence(sequence());
+        }
+        commandMachine.build();
+        autoCommandMachine.build();
+
+        snapshot = new GamepadSnapshot();
+        reactiveCommandMachine = new CommandMachine()
+                .setDispatchPolicy(CommandMachine.DispatchPolicy.REACTIVE);
+        GamepadStatic.Input[] allInputs = GamepadStatic.Input.values();
+        for (int i = 0; i < REACTIVE_SEQUENCES; i++) {
+            reactiveCommandMachine.addCommandSequence(sequence(), allInputs[1 + i % (allInputs.length - 1)]);
+        }
+        reactiveCommandMachine.build();
+    }
+
+    @Benchmark
+    public int commandMachineRun() {
+        gamepad.nextFrame();
+        commandMachine.run(gamepad);
+        return commandMachine.getCurrentCommandIndex();
+    }
+
+    /**
+     * 64 bindings spread over every input, only the ones pressed this frame are visited
+     */
+    @Benchmark
+    public int reactiveCommandMachineRun() {
+        gamepad.nextFrame();
+        snapshot.update(gamepad);
+        reactiveCommandMachine.run(snapshot);
+        return snapshot.getPressedMask();
+    }
+
+    @Benchmark
+    public int autoCommandMachineRun() {
+        autoCommandMachine.run(false);
+        return autoCommandMachine.getCurrentCommandIndex();
+    }
+
+}
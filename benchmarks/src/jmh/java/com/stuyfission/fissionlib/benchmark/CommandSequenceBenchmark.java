@@ -0,0 +1,58 @@
+package com.stuyfission.fissionlib.benchmark;
+
+import com.stuyfission.fissionlib.command.CommandSequence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency from trigger() until hasCompleted for a short sequence, threaded and cooperative
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandSequenceBenchmark {
+
+    private CommandSequence threaded;
+    private CommandSequence cooperative;
+    private volatile int counter;
+
+    private CommandSequence sequence() {
+        return new CommandSequence()
+                .addCommand(() -> counter++)
+                .addCommand(() -> counter++)
+                .addCommand(() -> counter++);
+    }
+
+    @Setup
+    public void setup() {
+        threaded = sequence().build();
+        cooperative = sequence().cooperative().build();
+    }
+
+    @Benchmark
+    public int threadedTriggerToComplete() {
+        threaded.trigger();
+        while (!threaded.hasCompleted) {
+            Thread.yield();
+        }
+        return counter;
+    }
+
+    @Benchmark
+    public int cooperativeTriggerToComplete() {
+        cooperative.trigger();
+        while (!cooperative.hasCompleted) {
+            cooperative.update();
+        }
+        return counter;
+    }
+
+}
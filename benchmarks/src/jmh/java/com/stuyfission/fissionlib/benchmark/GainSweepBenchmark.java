@@ -0,0 +1,65 @@
+package com.stuyfission.fissionlib.benchmark;
+
+import com.stuyfission.fissionlib.tuning.GainSweep;
+import com.stuyfission.fissionlib.tuning.PlantModel;
+import com.stuyfission.fissionlib.tuning.TuningResult;
+import com.stuyfission.fissionlib.tuning.TuningScenario;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time of a 256 candidate sweep over two simulated moves, on one thread and on a pool with one
+ * thread per core. The ratio of the two is the speedup of the fork/join split.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GainSweepBenchmark {
+
+    /**
+     * Pool threads, 0 for one per available core
+     */
+    @Param({ "1", "0" })
+    public int threads;
+
+    private GainSweep sweep;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        PlantModel plant = new PlantModel().setInertia(2e-3).setFriction(1e-4, 0.02);
+        TuningScenario scenario = new TuningScenario(0.7, 1, 384.5)
+                .addMove(20, 2)
+                .addMove(5, 2);
+        sweep = new GainSweep(plant, scenario)
+                .kP(0.05, 0.1, 0.2, 0.4)
+                .kD(0, 0.005, 0.01, 0.02)
+                .kF(0, 0.02, 0.05, 0.1)
+                .maxVel(20, 30, 40, 50)
+                .maxAccel(60);
+        pool = new ForkJoinPool(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<TuningResult> sweep() {
+        return sweep.run(pool);
+    }
+
+}
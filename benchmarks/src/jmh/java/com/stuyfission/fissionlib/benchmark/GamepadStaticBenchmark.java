@@ -0,0 +1,64 @@
+package com.stuyfission.fissionlib.benchmark;
+
+import com.stuyfission.fissionlib.benchmark.fake.FakeGamepad;
+import com.stuyfission.fissionlib.input.GamepadSnapshot;
+import com.stuyfission.fissionlib.input.GamepadStatic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GamepadStaticBenchmark {
+
+    private static final GamepadStatic.Input[] INPUTS = GamepadStatic.Input.values();
+
+    private FakeGamepad gamepad;
+    private GamepadSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        gamepad = new FakeGamepad();
+        snapshot = new GamepadSnapshot();
+    }
+
+    /**
+     * Polls every input once, the way a loop with one binding per button would
+     */
+    @Benchmark
+    public int isButtonPressedAllInputs() {
+        gamepad.nextFrame();
+        int pressed = 0;
+        for (GamepadStatic.Input input : INPUTS) {
+            if (GamepadStatic.isButtonPressed(gamepad, input)) {
+                pressed++;
+            }
+        }
+        return pressed;
+    }
+
+    /**
+     * Same queries against a snapshot taken once per loop
+     */
+    @Benchmark
+    public int snapshotAllInputs() {
+        gamepad.nextFrame();
+        snapshot.update(gamepad);
+        int pressed = 0;
+        for (GamepadStatic.Input input : INPUTS) {
+            if (snapshot.isHeld(input)) {
+                pressed++;
+            }
+        }
+        return pressed;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.stuyfission.fissionlib.benchmark;
+
+import com.stuyfission.fissionlib.benchmark.fake.FakeDcMotorEx;
+import com.stuyfission.fissionlib.motion.MotionProfiledDcMotor;
+import com.stuyfission.fissionlib.motion.ProfileCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MotionProfiledDcMotorBenchmark {
+
+    private static final double[] PRESETS = { 0, 8, 16, 24 };
+
+    private MotionProfiledDcMotor motor;
+    private MotionProfiledDcMotor cachedMotor;
+    private int preset;
+
+    private static MotionProfiledDcMotor createMotor() {
+        MotionProfiledDcMotor motor = new MotionProfiledDcMotor(new FakeDcMotorEx());
+        motor.setWheelConstants(0.7, 1, 537.7);
+        motor.setMotionConstraints(40, 80);
+        motor.setRetractionMultiplier(0.5);
+        motor.setPIDCoefficients(0.2, 0, 0.01, 0.05);
+        return motor;
+    }
+
+    @Setup
+    public void setup() {
+        motor = createMotor();
+        motor.setTargetPosition(24.0);
+
+        cachedMotor = createMotor();
+        cachedMotor.setProfileCache(new ProfileCache());
+        cachedMotor.prewarmProfiles(PRESETS);
+    }
+
+    @Benchmark
+    public double update() {
+        motor.update();
+        return motor.getPower();
+    }
+
+    @Benchmark
+    public void setTargetPosition() {
+        preset = (preset + 1) & 3;
+        motor.setTargetPosition(PRESETS[preset]);
+    }
+
+    @Benchmark
+    public void setTargetPositionCached() {
+        preset = (preset + 1) & 3;
+        cachedMotor.setTargetPosition(PRESETS[preset]);
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.stuyfission.fissionlib.benchmark.fake;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+/**
+ * In-memory DcMotorEx. The encoder integrates the commanded power so profiles see movement, and
+ * every read and write is counted as one hub transaction.
+ */
+public class FakeDcMotorEx implements DcMotorEx {
+
+    private static final double TICKS_PER_SECOND_AT_FULL_POWER = 2800;
+
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+    private Direction direction = Direction.FORWARD;
+    private double power;
+    private double position;
+    private long lastStep = System.nanoTime();
+
+    public long reads;
+    public long writes;
+
+    private void step() {
+        long now = System.nanoTime();
+        position += power * TICKS_PER_SECOND_AT_FULL_POWER * (now - lastStep) * 1e-9;
+        lastStep = now;
+    }
+
+    @Override public int getCurrentPosition() { reads++; step(); return (int) position; }
+    @Override public double getVelocity() { reads++; return power * TICKS_PER_SECOND_AT_FULL_POWER; }
+    @Override public double getVelocity(AngleUnit unit) { return getVelocity(); }
+    @Override public void setPower(double power) { writes++; step(); this.power = power; }
+    @Override public double getPower() { return power; }
+    @Override public void setMode(RunMode mode) { writes++; if (mode == RunMode.STOP_AND_RESET_ENCODER) position = 0; this.mode = mode; }
+    @Override public RunMode getMode() { return mode; }
+    @Override public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) { writes++; this.zeroPowerBehavior = zeroPowerBehavior; }
+    @Override public ZeroPowerBehavior getZeroPowerBehavior() { return zeroPowerBehavior; }
+    @Override public void setDirection(Direction direction) { writes++; this.direction = direction; }
+    @Override public Direction getDirection() { return direction; }
+
+    @Override public void setMotorEnable() { }
+    @Override public void setMotorDisable() { }
+    @Override public boolean isMotorEnabled() { return true; }
+    @Override public void setVelocity(double angularRate) { }
+    @Override public void setVelocity(double angularRate, AngleUnit unit) { }
+    @Override @Deprecated public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) { }
+    @Override public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) { }
+    @Override public void setVelocityPIDFCoefficients(double p, double i, double d, double f) { }
+    @Override public void setPositionPIDFCoefficients(double p) { }
+    @Override @Deprecated public PIDCoefficients getPIDCoefficients(RunMode mode) { return null; }
+    @Override public PIDFCoefficients getPIDFCoefficients(RunMode mode) { return null; }
+    @Override public void setTargetPositionTolerance(int tolerance) { }
+    @Override public int getTargetPositionTolerance() { return 0; }
+    @Override public double getCurrent(CurrentUnit unit) { return 0; }
+    @Override public double getCurrentAlert(CurrentUnit unit) { return 0; }
+    @Override public void setCurrentAlert(double current, CurrentUnit unit) { }
+    @Override public boolean isOverCurrent() { return false; }
+    @Override public MotorConfigurationType getMotorType() { return null; }
+    @Override public void setMotorType(MotorConfigurationType motorType) { }
+    @Override public DcMotorController getController() { return null; }
+    @Override public int getPortNumber() { return 0; }
+    @Override @Deprecated public void setPowerFloat() { }
+    @Override public boolean getPowerFloat() { return false; }
+    @Override public void setTargetPosition(int position) { }
+    @Override public int getTargetPosition() { return 0; }
+    @Override public boolean isBusy() { return false; }
+    @Override public Manufacturer getManufacturer() { return Manufacturer.Other; }
+    @Override public String getDeviceName() { return "FakeDcMotorEx"; }
+    @Override public String getConnectionInfo() { return "fake"; }
+    @Override public int getVersion() { return 1; }
+    @Override public void resetDeviceConfigurationForOpMode() { }
+    @Override public void close() { }
+
+}
@@ -0,0 +1,24 @@
+package com.stuyfission.fissionlib.benchmark.fake;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+/**
+ * Gamepad whose buttons follow a fixed press pattern, advanced one frame at a time
+ */
+public class FakeGamepad extends Gamepad {
+
+    private int frame;
+
+    /**
+     * Moves to the next frame: A toggles every frame, B every other frame, the right trigger is
+     * pulled on every fourth frame
+     */
+    public void nextFrame() {
+        frame++;
+        a = (frame & 1) != 0;
+        b = (frame & 2) != 0;
+        dpad_up = (frame & 4) != 0;
+        right_trigger = (frame & 3) == 0 ? 1 : 0;
+    }
+
+}
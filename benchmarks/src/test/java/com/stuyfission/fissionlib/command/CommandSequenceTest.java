@@ -0,0 +1,74 @@
+package com.stuyfission.fissionlib.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.stuyfission.fissionlib.sim.SimClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class CommandSequenceTest {
+
+    private SimClock clock;
+    private TimerWheel previousWheel;
+
+    @Before
+    public void setUp() {
+        clock = new SimClock();
+        previousWheel = TimerWheel.getDefault();
+        TimerWheel.setDefault(new TimerWheel(1_000_000, 256, clock));
+    }
+
+    @After
+    public void tearDown() {
+        TimerWheel.setDefault(previousWheel);
+    }
+
+    @Test
+    public void cooperativeSequenceAdvancesOnUpdate() {
+        int[] runs = new int[2];
+        CommandSequence sequence = new CommandSequence()
+                .addCommand(() -> runs[0]++)
+                .addWaitCommand(0.1)
+                .addCommand(() -> runs[1]++)
+                .cooperative()
+                .build();
+
+        sequence.trigger();
+        assertEquals(1, runs[0]);
+        assertFalse(sequence.hasCompleted);
+
+        clock.advanceSeconds(0.05);
+        sequence.update();
+        assertEquals(0, runs[1]);
+
+        clock.advanceSeconds(0.06);
+        sequence.update();
+        assertEquals(1, runs[1]);
+        assertTrue(sequence.hasCompleted);
+    }
+
+    @Test
+    public void threadedSequenceWaitsWithoutSpinning() throws InterruptedException {
+        TimerWheel.setDefault(previousWheel);
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        CommandSequence sequence = new CommandSequence().addWaitCommand(0.3).build();
+        long cpu = os.getProcessCpuTime();
+        sequence.trigger();
+        while (!sequence.hasCompleted) {
+            Thread.sleep(10);
+        }
+        cpu = os.getProcessCpuTime() - cpu;
+
+        // a spinning thread would burn the whole 300ms of waiting
+        assertTrue("used " + cpu / 1e6 + " ms of CPU", cpu < 100_000_000L);
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.stuyfission.fissionlib.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.util.Mechanism;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MechanismArbiterTest {
+
+    private static class EmptyMechanism extends Mechanism {
+        @Override
+        public void init(HardwareMap hwMap) { }
+    }
+
+    private final Mechanism slides = new EmptyMechanism();
+    private final Mechanism arm = new EmptyMechanism();
+    private final MechanismArbiter arbiter = new MechanismArbiter();
+
+    private static CommandSequence instant(Mechanism... requirements) {
+        return new CommandSequence().addCommand(() -> { }).requires(requirements).cooperative().build();
+    }
+
+    private static CommandSequence waiting(Mechanism... requirements) {
+        return new CommandSequence().addWaitCommand(10).requires(requirements).cooperative().build();
+    }
+
+    @Test
+    public void completedSequenceCanBeRetriggered() {
+        CommandSequence score = instant(slides, arm);
+
+        assertTrue(arbiter.acquire(score));
+        score.trigger();
+        assertTrue(score.hasCompleted);
+
+        // the completed owner holds both bits until the next acquire collects them
+        assertTrue(arbiter.acquire(score));
+        score.trigger();
+        assertTrue(arbiter.acquire(instant(slides, arm)));
+    }
+
+    @Test
+    public void higherPriorityPreemptsOwner() {
+        CommandSequence low = waiting(slides, arm);
+        CommandSequence high = waiting(slides).setPriority(1);
+
+        assertTrue(arbiter.acquire(low));
+        low.trigger();
+        assertTrue(arbiter.acquire(high));
+        high.trigger();
+
+        assertTrue(low.hasCompleted);
+        assertSame(high, arbiter.getOwner(slides));
+        assertNull(arbiter.getOwner(arm));
+    }
+
+    @Test
+    public void equalPriorityIsRejected() {
+        CommandSequence first = waiting(slides);
+        CommandSequence second = waiting(slides, arm);
+
+        assertTrue(arbiter.acquire(first));
+        first.trigger();
+        assertFalse(arbiter.acquire(second));
+
+        assertFalse(first.hasCompleted);
+        assertSame(first, arbiter.getOwner(slides));
+        assertNull(arbiter.getOwner(arm));
+    }
+
+    @Test
+    public void cancelFreesMechanisms() {
+        CommandSequence sequence = waiting(slides, arm);
+
+        assertTrue(arbiter.acquire(sequence));
+        sequence.trigger();
+        sequence.cancel();
+
+        assertTrue(sequence.hasCompleted);
+        assertNull(arbiter.getOwner(slides));
+        assertNull(arbiter.getOwner(arm));
+    }
+
+    @Test
+    public void preemptedThreadedOwnerFinishesBeforeRelease() throws InterruptedException {
+        CommandSequence low = new CommandSequence().addWaitCommand(10).requires(slides).build();
+        CommandSequence high = waiting(slides).setPriority(1);
+
+        assertTrue(arbiter.acquire(low));
+        low.trigger();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!arbiter.acquire(high)) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        high.trigger();
+
+        assertTrue(low.hasCompleted);
+        assertSame(high, arbiter.getOwner(slides));
+    }
+
+    @Test
+    public void blockedThreadedOwnerKeepsMechanisms() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        int[] writes = new int[1];
+        CommandSequence low = new CommandSequence()
+                .addCommand(() -> {
+                    started.countDown();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .addCommand(() -> writes[0]++)
+                .requires(slides)
+                .build();
+        CommandSequence high = waiting(slides).setPriority(1);
+
+        assertTrue(arbiter.acquire(low));
+        low.trigger();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // the command may still write to the slides, so they stay owned
+        low.cancel();
+        for (int loop = 0; loop < 5; loop++) {
+            long start = System.nanoTime();
+            assertFalse(arbiter.acquire(high));
+            long elapsed = System.nanoTime() - start;
+            assertTrue("acquire blocked for " + elapsed / 1e6 + " ms", elapsed < 2_000_000L);
+        }
+        assertSame(low, arbiter.getOwner(slides));
+
+        gate.countDown();
+        while (!low.hasCompleted) {
+            Thread.sleep(1);
+        }
+        assertTrue(arbiter.acquire(high));
+        assertEquals(0, writes[0]);
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.stuyfission.fissionlib.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletionException;
+
+public class PrecomputedTest {
+
+    private final RuntimeException failure = new IllegalArgumentException("no path");
+    private Precomputer precomputer;
+
+    @Before
+    public void setUp() {
+        precomputer = new Precomputer();
+    }
+
+    @After
+    public void tearDown() {
+        precomputer.shutdown();
+    }
+
+    private static void awaitDone(Precomputed<?> value) throws InterruptedException {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!value.isReady() && !value.isFailed()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void generatedValueIsReady() throws InterruptedException {
+        Precomputed<String> value = precomputer.add("path", () -> "ok").start();
+        awaitDone(value);
+
+        assertTrue(value.isReady());
+        assertFalse(value.isFailed());
+        assertNull(value.getFailure());
+        assertEquals("ok", value.get());
+    }
+
+    @Test
+    public void throwingGeneratorIsFailedNotReady() throws InterruptedException {
+        Precomputed<String> value = precomputer.<String>add("path", () -> { throw failure; }).start();
+        awaitDone(value);
+
+        assertFalse(value.isReady());
+        assertTrue(value.isFailed());
+        assertSame(failure, value.getFailure());
+        try {
+            value.get();
+            fail("get() returned a value that was never generated");
+        } catch (CompletionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void autoMachineSurfacesFailureInsteadOfStarting() throws InterruptedException {
+        Precomputed<String> value = precomputer.<String>add("path", () -> { throw failure; });
+        boolean[] started = new boolean[1];
+        CommandSequence drive = new CommandSequence().addCommand(() -> started[0] = true).cooperative().build();
+        AutoCommandMachine auto = new AutoCommandMachine().addCommandSequence(drive, value).build();
+        awaitDone(value);
+
+        try {
+            auto.run(false);
+            fail("sequence started without its value");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertFalse(started[0]);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.stuyfission.fissionlib.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.stuyfission.fissionlib.benchmark.fake.FakeDcMotorEx;
+import com.stuyfission.fissionlib.util.Clock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class AsyncHardwareIOTest {
+
+    private static final long READ_LATENCY_MILLIS = 2;
+
+    /**
+     * Motor whose encoder reads take as long as a hub round trip
+     */
+    private static class LatentDcMotorEx extends FakeDcMotorEx {
+        volatile double lastPower = Double.NaN;
+
+        @Override
+        public int getCurrentPosition() {
+            try {
+                Thread.sleep(READ_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getCurrentPosition();
+        }
+
+        @Override
+        public void setPower(double power) {
+            super.setPower(power);
+            lastPower = power;
+        }
+    }
+
+    private LatentDcMotorEx motor;
+    private AsyncHardwareIO io;
+    private int channel;
+
+    @Before
+    public void setUp() {
+        motor = new LatentDcMotorEx();
+        io = new AsyncHardwareIO(Collections.<LynxModule>emptyList(), Clock.SYSTEM);
+        channel = io.register(motor);
+    }
+
+    @After
+    public void tearDown() {
+        io.stop();
+    }
+
+    private void awaitSnapshot() throws InterruptedException {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!io.beginCycle()) {
+            assertTrue("no snapshot within 1s", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void usableBeforeStart() {
+        io.setPower(channel, 0.5);
+        assertEquals(0.5, io.getPower(channel), 0);
+        assertEquals(0, io.getPosition(channel));
+        assertEquals(Long.MAX_VALUE, io.getStaleness());
+        assertEquals(0, io.getSnapshotSequence());
+    }
+
+    @Test
+    public void loopDoesNotWaitOnReads() throws InterruptedException {
+        io.start();
+        awaitSnapshot();
+
+        int cycles = 50;
+        long loopTime = 0;
+        for (int i = 0; i < cycles; i++) {
+            long start = System.nanoTime();
+            io.beginCycle();
+            io.setPower(channel, io.getPosition(channel) > 1e6 ? 0 : 0.3);
+            io.endCycle();
+            loopTime += System.nanoTime() - start;
+            Thread.sleep(1);
+        }
+
+        // reading synchronously would have cost at least one latency per cycle
+        assertTrue("loop spent " + loopTime / 1e6 + " ms", loopTime < cycles * READ_LATENCY_MILLIS * 1_000_000L / 4);
+    }
+
+    @Test
+    public void powersReachTheMotorAndSnapshotsReportStaleness() throws InterruptedException {
+        io.start();
+        io.setPower(channel, 0.5);
+        io.endCycle();
+
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (motor.lastPower != 0.5) {
+            assertTrue("power not written within 1s", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+
+        awaitSnapshot();
+        assertTrue(io.getSnapshotSequence() > 0);
+        assertTrue(io.getStaleness() >= 0);
+        assertTrue(io.getStaleness() < 1_000_000_000L);
+    }
+
+    @Test
+    public void ioThreadIdlesBetweenCycles() throws InterruptedException {
+        io.start();
+        awaitSnapshot();
+        long first = io.getSnapshotSequence();
+
+        // without endCycle the thread only refreshes the snapshot every 20ms
+        Thread.sleep(200);
+        awaitSnapshot();
+        long passes = io.getSnapshotSequence() - first;
+        assertTrue("I/O thread ran " + passes + " passes in 200ms", passes <= 12);
+    }
+
+    @Test
+    public void stopZeroesMotors() throws InterruptedException {
+        io.start();
+        io.setPower(channel, 0.8);
+        io.endCycle();
+        Thread.sleep(50);
+
+        io.stop();
+        assertEquals(0, motor.lastPower, 0);
+        assertEquals(0, io.getPower(channel), 0);
+    }
+
+}
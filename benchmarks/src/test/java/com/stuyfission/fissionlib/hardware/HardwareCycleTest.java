@@ -0,0 +1,79 @@
+package com.stuyfission.fissionlib.hardware;
+
+import static org.junit.Assert.assertEquals;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.stuyfission.fissionlib.benchmark.fake.FakeDcMotorEx;
+import com.stuyfission.fissionlib.motion.MotionProfiledDcMotor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class HardwareCycleTest {
+
+    private FakeDcMotorEx fake;
+    private MotionProfiledDcMotor motor;
+    private HardwareCycle hardwareCycle;
+
+    @Before
+    public void setUp() {
+        fake = new FakeDcMotorEx();
+        motor = new MotionProfiledDcMotor(fake);
+        motor.setWheelConstants(0.7, 1, 537.7);
+        motor.setMotionConstraints(40, 80);
+        motor.setPIDCoefficients(0.2, 0, 0.01, 0.05);
+        hardwareCycle = new HardwareCycle(Collections.<LynxModule>emptyList());
+    }
+
+    @Test
+    public void withoutCycleEveryCallReadsTheMotor() {
+        long reads = fake.reads;
+        motor.setTargetPosition(24.0);
+        motor.update();
+        motor.getPosition();
+
+        // setTargetPosition reads position and velocity, update reads both again, plus getPosition
+        assertEquals(5, fake.reads - reads);
+    }
+
+    @Test
+    public void cycleSharesOneReadOfEachValue() {
+        motor.setHardwareCycle(hardwareCycle);
+
+        hardwareCycle.begin();
+        long reads = fake.reads;
+        motor.setTargetPosition(24.0);
+        motor.update();
+        motor.getPosition();
+        motor.getVelocity();
+        assertEquals(2, fake.reads - reads);
+
+        for (int i = 0; i < 10; i++) {
+            hardwareCycle.begin();
+            reads = fake.reads;
+            motor.update();
+            motor.getPosition();
+            assertEquals(2, fake.reads - reads);
+        }
+    }
+
+    @Test
+    public void beginStartsANewCycle() {
+        motor.setHardwareCycle(hardwareCycle);
+        long cycle = hardwareCycle.getCycle();
+
+        hardwareCycle.begin();
+        motor.getPosition();
+        long reads = fake.reads;
+        motor.getPosition();
+        assertEquals(0, fake.reads - reads);
+
+        hardwareCycle.begin();
+        motor.getPosition();
+        assertEquals(1, fake.reads - reads);
+        assertEquals(cycle + 2, hardwareCycle.getCycle());
+    }
+
+}
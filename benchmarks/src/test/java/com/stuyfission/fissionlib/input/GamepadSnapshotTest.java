@@ -0,0 +1,103 @@
+package com.stuyfission.fissionlib.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.stuyfission.fissionlib.sim.SimClock;
+
+import org.junit.Test;
+
+import java.util.function.Consumer;
+
+public class GamepadSnapshotTest {
+
+    private static final Consumer<Gamepad>[] CONTROLS = controls();
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Gamepad>[] controls() {
+        return new Consumer[] {
+                (Consumer<Gamepad>) g -> g.dpad_up = true,
+                (Consumer<Gamepad>) g -> g.dpad_down = true,
+                (Consumer<Gamepad>) g -> g.dpad_left = true,
+                (Consumer<Gamepad>) g -> g.dpad_right = true,
+                (Consumer<Gamepad>) g -> g.a = true,
+                (Consumer<Gamepad>) g -> g.b = true,
+                (Consumer<Gamepad>) g -> g.x = true,
+                (Consumer<Gamepad>) g -> g.y = true,
+                (Consumer<Gamepad>) g -> g.start = true,
+                (Consumer<Gamepad>) g -> g.back = true,
+                (Consumer<Gamepad>) g -> g.left_bumper = true,
+                (Consumer<Gamepad>) g -> g.right_bumper = true,
+                (Consumer<Gamepad>) g -> g.left_stick_button = true,
+                (Consumer<Gamepad>) g -> g.right_stick_button = true,
+                (Consumer<Gamepad>) g -> g.left_trigger = 1,
+                (Consumer<Gamepad>) g -> g.right_trigger = 1,
+        };
+    }
+
+    @Test
+    public void everyControlSetsTheBitOfItsInput() {
+        GamepadSnapshot snapshot = new GamepadSnapshot();
+        int seen = 0;
+
+        for (Consumer<Gamepad> control : CONTROLS) {
+            Gamepad gamepad = new Gamepad();
+            control.accept(gamepad);
+            int mask = snapshot.capture(gamepad);
+
+            assertEquals("one bit per control", 1, Integer.bitCount(mask));
+            GamepadStatic.Input input = GamepadStatic.Input.values()[Integer.numberOfTrailingZeros(mask)];
+            assertTrue(input + " bit set by another control", GamepadStatic.isButtonPressed(gamepad, input));
+            seen |= mask;
+        }
+
+        assertEquals(GamepadStatic.Input.values().length - 1, Integer.bitCount(seen));
+        assertEquals(0, seen & GamepadSnapshot.bit(GamepadStatic.Input.NONE));
+    }
+
+    @Test
+    public void reportsEdgesOnce() {
+        GamepadSnapshot snapshot = new GamepadSnapshot();
+        Gamepad gamepad = new Gamepad();
+
+        gamepad.a = true;
+        snapshot.update(gamepad);
+        assertTrue(snapshot.isPressed(GamepadStatic.Input.A));
+
+        snapshot.update(gamepad);
+        assertFalse(snapshot.isPressed(GamepadStatic.Input.A));
+        assertTrue(snapshot.isHeld(GamepadStatic.Input.A));
+
+        gamepad.a = false;
+        snapshot.update(gamepad);
+        assertTrue(snapshot.isReleased(GamepadStatic.Input.A));
+    }
+
+    @Test
+    public void debounceUsesTheInjectedClock() {
+        SimClock clock = new SimClock();
+        GamepadSnapshot snapshot = new GamepadSnapshot(0, 0.02);
+        snapshot.setClock(clock);
+        Gamepad gamepad = new Gamepad();
+
+        gamepad.b = true;
+        snapshot.update(gamepad);
+        assertFalse(snapshot.isHeld(GamepadStatic.Input.B));
+
+        // a bounce shorter than the debounce time is ignored
+        clock.advanceSeconds(0.01);
+        gamepad.b = false;
+        snapshot.update(gamepad);
+        clock.advanceSeconds(0.005);
+        gamepad.b = true;
+        snapshot.update(gamepad);
+        assertFalse(snapshot.isHeld(GamepadStatic.Input.B));
+
+        clock.advanceSeconds(0.025);
+        snapshot.update(gamepad);
+        assertTrue(snapshot.isPressed(GamepadStatic.Input.B));
+    }
+
+}
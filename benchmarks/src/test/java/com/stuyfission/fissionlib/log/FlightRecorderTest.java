@@ -0,0 +1,65 @@
+package com.stuyfission.fissionlib.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.stuyfission.fissionlib.sim.SimClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class FlightRecorderTest {
+
+    private static final int RECORDS = 100;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("flight", ".flog");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void recordsRoundTripAtSixtyFourBytes() throws IOException {
+        SimClock clock = new SimClock();
+        FlightRecorder recorder = new FlightRecorder(file, 256, 1 << 20, clock);
+        int slides = recorder.register("slides");
+        recorder.start();
+        for (int i = 0; i < RECORDS; i++) {
+            recorder.setCommandIndex(i / 10);
+            assertTrue(recorder.record(slides, i, 2 * i, 3 * i, 4 * i, 5 * i, 1.5));
+            clock.advanceSeconds(0.01);
+        }
+        recorder.stop();
+
+        assertEquals(64, FlightRecorder.RECORD_SIZE);
+        assertEquals(FlightRecorder.HEADER_SIZE + RECORDS * 64L, file.length());
+
+        try (FlightLogReader reader = new FlightLogReader(file)) {
+            assertEquals(RECORDS, reader.getRecordCount());
+            assertEquals("slides", reader.getSourceName(0));
+            for (int i = 0; i < RECORDS; i++) {
+                assertTrue(reader.next());
+                assertEquals(i / 10, reader.getCommandIndex());
+                assertEquals(i, reader.getProfileX(), 0);
+                assertEquals(2 * i, reader.getProfileV(), 0);
+                assertEquals(3 * i, reader.getProfileA(), 0);
+                assertEquals(4 * i, reader.getPosition(), 0);
+                assertEquals(5 * i, reader.getVelocity(), 0);
+                assertEquals(1.5, reader.getOutput(), 0);
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+}
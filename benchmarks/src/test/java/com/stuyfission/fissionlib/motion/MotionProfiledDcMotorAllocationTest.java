@@ -0,0 +1,93 @@
+package com.stuyfission.fissionlib.motion;
+
+import static org.junit.Assert.assertTrue;
+
+import com.stuyfission.fissionlib.benchmark.fake.FakeDcMotorEx;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class MotionProfiledDcMotorAllocationTest {
+
+    private static final int LOOPS = 10_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private MotionProfiledDcMotor motor;
+
+    @Before
+    public void setUp() {
+        threads.setThreadAllocatedMemoryEnabled(true);
+        motor = new MotionProfiledDcMotor(new FakeDcMotorEx());
+        motor.setWheelConstants(0.7, 1, 537.7);
+        motor.setMotionConstraints(40, 80);
+        motor.setPIDCoefficients(0.2, 0, 0.01, 0.05);
+        motor.setFeedforward(0.05, 0.01, 0.001, 0);
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs the body once to load classes and settle the JIT, then measures a second run. A few
+     * hundred bytes can still come from the JIT itself, so the check is against one byte per loop:
+     * any object allocated per call costs at least 16.
+     */
+    private void assertNoAllocation(String what, Runnable body) {
+        body.run();
+
+        long empty = allocatedBytes();
+        empty = allocatedBytes() - empty;
+
+        long start = allocatedBytes();
+        body.run();
+        long bytes = allocatedBytes() - start - empty;
+        assertTrue(what + " allocated " + bytes + " bytes over " + LOOPS + " loops", bytes < LOOPS);
+    }
+
+    @Test
+    public void updateDoesNotAllocate() {
+        motor.setTargetPosition(24.0);
+        motor.update();
+
+        assertNoAllocation("updates", () -> {
+            for (int i = 0; i < LOOPS; i++) {
+                motor.update();
+            }
+        });
+    }
+
+    @Test
+    public void retargetingDoesNotAllocate() {
+        double[] presets = { 0, 8, 16, 24 };
+        motor.setTargetPosition(presets[3]);
+
+        assertNoAllocation("retargets", () -> {
+            for (int i = 0; i < LOOPS; i++) {
+                motor.setTargetPosition(presets[i & 3]);
+                motor.update();
+            }
+        });
+    }
+
+    @Test
+    public void profileAndControllerDoNotAllocate() {
+        TrapezoidProfile profile = new TrapezoidProfile();
+        PIDFLoop loop = new PIDFLoop(0.2, 0, 0.01, 0.05);
+        profile.generate(0, 0, 24, 40, 80);
+
+        assertNoAllocation("profile and controller steps", () -> {
+            for (int i = 0; i < LOOPS; i++) {
+                profile.generate(0, i * 1e-3, 24, 40, 80);
+                profile.evaluate(i * 1e-4);
+                loop.setTarget(profile.getX(), profile.getV(), profile.getA());
+                loop.update(i * 1e-3, 0, 12);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.stuyfission.fissionlib.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.benchmark.fake.FakeDcMotorEx;
+import com.stuyfission.fissionlib.util.InstrumentedMechanism;
+import com.stuyfission.fissionlib.util.Mechanism;
+
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.junit.Test;
+
+public class MotionProfiledDcMotorGroupTest {
+
+    private static class TrackedDcMotorEx extends FakeDcMotorEx {
+        int closes;
+        int resets;
+
+        @Override
+        public void close() { closes++; }
+
+        @Override
+        public void resetDeviceConfigurationForOpMode() { resets++; }
+    }
+
+    private final TrackedDcMotorEx leader = new TrackedDcMotorEx();
+    private final TrackedDcMotorEx left = new TrackedDcMotorEx();
+    private final TrackedDcMotorEx right = new TrackedDcMotorEx();
+    private final MotionProfiledDcMotorGroup group = new MotionProfiledDcMotorGroup(leader, left, right);
+
+    @Test
+    public void closeAndResetReachEveryMotor() {
+        group.resetDeviceConfigurationForOpMode();
+        group.close();
+
+        for (TrackedDcMotorEx motor : new TrackedDcMotorEx[] {leader, left, right}) {
+            assertEquals(1, motor.resets);
+            assertEquals(1, motor.closes);
+        }
+    }
+
+    @Test
+    public void initializeIsRejected() {
+        try {
+            group.initialize(null, "slides");
+            fail("group was re-initialized with a new leader");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(leader, group.getMotor(0));
+        }
+    }
+
+    @Test
+    public void currentReadsAreCounted() {
+        InstrumentedMechanism mechanism = new InstrumentedMechanism(new Mechanism() {
+            @Override
+            public void init(HardwareMap hwMap) { }
+
+            @Override
+            public void loop(Gamepad gamepad) { group.getCurrent(CurrentUnit.AMPS); }
+        });
+        mechanism.loop((Gamepad) null);
+
+        assertEquals(3, mechanism.getStats().getHardwareCalls());
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.stuyfission.fissionlib.tuning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class GainSweepTest {
+
+    private static GainSweep sweep() {
+        PlantModel plant = new PlantModel().setInertia(2e-3).setFriction(1e-4, 0.02);
+        TuningScenario scenario = new TuningScenario(0.7, 1, 384.5)
+                .addMove(12, 1.5)
+                .addMove(2, 1.5);
+        return new GainSweep(plant, scenario)
+                .kP(0.05, 0.2, 0.8)
+                .kD(0, 0.01)
+                .kF(0, 0.02)
+                .maxVel(20, 40)
+                .maxAccel(40, 80);
+    }
+
+    @Test
+    public void parallelRunMatchesSequentialRun() {
+        GainSweep sweep = sweep();
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            List<TuningResult> expected = sweep.run(single);
+            List<TuningResult> actual = sweep.run(parallel);
+
+            assertEquals(sweep.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getSettleTime(), actual.get(i).getSettleTime(), 0);
+                assertEquals(expected.get(i).getOvershoot(), actual.get(i).getOvershoot(), 0);
+                assertEquals(expected.get(i).getPeakPower(), actual.get(i).getPeakPower(), 0);
+            }
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void paretoFrontKeepsExactlyTheUndominatedSettledResults() {
+        List<TuningResult> results = sweep().run();
+        List<TuningResult> front = GainSweep.paretoFront(results);
+
+        assertFalse(front.isEmpty());
+        for (TuningResult result : results) {
+            boolean dominated = false;
+            for (TuningResult other : results) {
+                dominated |= other.isSettled() && other.dominates(result);
+            }
+            assertEquals(result.toString(), result.isSettled() && !dominated, front.contains(result));
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.stuyfission.fissionlib.tuning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.stuyfission.fissionlib.log.FlightRecorder;
+import com.stuyfission.fissionlib.motion.MotionProfiledDcMotor;
+import com.stuyfission.fissionlib.sim.SimulatedDcMotorEx;
+import com.stuyfission.fissionlib.sim.Simulation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class MotorLogTest {
+
+    private static final double WHEEL_RADIUS = 0.7;
+    private static final double TICKS_PER_REV = 384.5;
+    private static final double TICKS_PER_INCH = TICKS_PER_REV / (WHEEL_RADIUS * 2 * Math.PI);
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("motor", ".flog");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void readsCsvInTicks() throws IOException {
+        MotorLog log = MotorLog.readCsv(new StringReader(
+                "time_ns,power,position,velocity,voltage\n"
+                        + "0,0.5,0,0,12.5\n"
+                        + "10000000,0.5,12,1200,12.4\n"));
+
+        assertEquals(2, log.size());
+        assertEquals(0.01, log.getTime(1), 1e-12);
+        assertEquals(1200, log.getVelocity(1), 0);
+        assertEquals(12.4, log.getVoltage(1), 0);
+    }
+
+    /**
+     * Records a simulated motor with the flight recorder, then fits a plant to the recorded log
+     */
+    @Test
+    public void fitsAPlantToAFlightLog() throws IOException {
+        PlantModel truth = new PlantModel().setMotor(435, 1.83, 9.2, TICKS_PER_REV)
+                .setInertia(2e-3)
+                .setFriction(1e-4, 0.02);
+
+        SimulatedDcMotorEx simulated = truth.createMotor();
+        try (Simulation sim = new Simulation().addMotor(simulated).install()) {
+            MotionProfiledDcMotor motor = new MotionProfiledDcMotor(simulated);
+            motor.setClock(sim.getClock());
+            motor.setWheelConstants(WHEEL_RADIUS, 1, TICKS_PER_REV);
+            motor.setMotionConstraints(30, 60);
+            motor.setPIDCoefficients(0.2, 0, 0.005, 0.02);
+
+            FlightRecorder recorder = new FlightRecorder(file, 1 << 14, 1 << 22, sim.getClock());
+            motor.setFlightRecorder(recorder, "slides");
+            recorder.start();
+            sim.addLoop(motor::update);
+
+            double[] targets = { 20, 4, 30, 10, 0 };
+            for (double target : targets) {
+                motor.setTargetPosition(target);
+                sim.run(1.5);
+            }
+            recorder.stop();
+            assertEquals(0, recorder.getDropped());
+        }
+
+        MotorLog log = MotorLog.readFlightLog(file, "slides", TICKS_PER_INCH);
+        assertTrue(log.size() > 500);
+        assertTrue(Double.isNaN(log.getVoltage(0)));
+
+        PlantModel fitted = PlantModel.fit(log, new PlantModel().setMotor(435, 1.83, 9.2, TICKS_PER_REV));
+        assertEquals(truth.getInertia(), fitted.getInertia(), truth.getInertia() * 0.2);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownSourceIsAnError() throws IOException {
+        FlightRecorder recorder = new FlightRecorder(file);
+        recorder.register("slides");
+        recorder.start();
+        recorder.stop();
+
+        MotorLog.readFlightLog(file, "arm", TICKS_PER_INCH);
+    }
+
+}
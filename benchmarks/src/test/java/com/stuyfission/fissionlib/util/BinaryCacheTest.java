@@ -0,0 +1,100 @@
+package com.stuyfission.fissionlib.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class BinaryCacheTest {
+
+    private static final String KEY = "path";
+    // magic, codec version, then the key as modified UTF-8
+    private static final int LENGTH_OFFSET = 4 + 4 + 2 + KEY.length();
+
+    private File directory;
+    private BinaryCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("binary-cache").toFile();
+        cache = new BinaryCache(directory);
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+        directory.delete();
+    }
+
+    private File storedFile() {
+        assertTrue(cache.store(KEY, Codec.DOUBLES, new double[] { 1, 2, 3 }));
+        File[] files = directory.listFiles();
+        assertTrue(files != null && files.length == 1);
+        return files[0];
+    }
+
+    private void writeLength(File file, int length) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(LENGTH_OFFSET);
+            out.writeInt(length);
+        }
+    }
+
+    @Test
+    public void roundTrips() {
+        storedFile();
+        assertArrayEquals(new double[] { 1, 2, 3 }, cache.load(KEY, Codec.DOUBLES), 0);
+    }
+
+    @Test
+    public void hugeLengthIsAMiss() throws IOException {
+        writeLength(storedFile(), Integer.MAX_VALUE);
+        assertNull(cache.load(KEY, Codec.DOUBLES));
+    }
+
+    @Test
+    public void negativeLengthIsAMiss() throws IOException {
+        writeLength(storedFile(), -1);
+        assertNull(cache.load(KEY, Codec.DOUBLES));
+    }
+
+    @Test
+    public void truncatedFileIsAMiss() throws IOException {
+        File file = storedFile();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(file.length() - 4);
+        }
+        assertNull(cache.load(KEY, Codec.DOUBLES));
+    }
+
+    @Test
+    public void otherVersionIsAMiss() {
+        storedFile();
+        Codec<double[]> next = new Codec<double[]>() {
+            @Override
+            public void write(DataOutput out, double[] value) throws IOException {
+                Codec.DOUBLES.write(out, value);
+            }
+
+            @Override
+            public double[] read(DataInput in) throws IOException {
+                return Codec.DOUBLES.read(in);
+            }
+
+            @Override
+            public int version() { return 2; }
+        };
+        assertNull(cache.load(KEY, next));
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.stuyfission.fissionlib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.stuyfission.fissionlib.sim.SimClock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class MechanismSchedulerTest {
+
+    private static final double LOOP = 0.01;
+
+    private static class CountingMechanism extends Mechanism {
+        private final SimClock clock;
+        private final double period;
+        private final int priority;
+        final ArrayList<Long> runs = new ArrayList<>();
+
+        CountingMechanism(SimClock clock, double period, int priority) {
+            this.clock = clock;
+            this.period = period;
+            this.priority = priority;
+        }
+
+        @Override
+        public void init(HardwareMap hwMap) { }
+
+        @Override
+        public void loop(Gamepad gamepad) { runs.add(clock.nanoTime()); }
+
+        @Override
+        public double getLoopPeriod() { return period; }
+
+        @Override
+        public int getPriority() { return priority; }
+
+        long maxInterval() {
+            long max = 0;
+            for (int i = 1; i < runs.size(); i++) {
+                max = Math.max(max, runs.get(i) - runs.get(i - 1));
+            }
+            return max;
+        }
+    }
+
+    private SimClock clock;
+    private MechanismScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        clock = new SimClock();
+        scheduler = new MechanismScheduler(clock);
+    }
+
+    private CountingMechanism add(double period, int priority) {
+        CountingMechanism mechanism = new CountingMechanism(clock, period, priority);
+        scheduler.register(mechanism);
+        return mechanism;
+    }
+
+    private void run(double seconds) {
+        int loops = (int) Math.round(seconds / LOOP);
+        for (int i = 0; i < loops; i++) {
+            scheduler.loop(null);
+            clock.advanceSeconds(LOOP);
+        }
+    }
+
+    @Test
+    public void mechanismsLoopAtTheirOwnRate() {
+        CountingMechanism fast = add(0, 0);
+        CountingMechanism slow = add(0.1, 0);
+
+        run(2);
+
+        assertEquals(200, fast.runs.size());
+        assertEquals(20, slow.runs.size());
+        assertEquals(10, scheduler.getEntries().get(1).getActualRate(), 0.5);
+        assertEquals(100, scheduler.getEntries().get(0).getActualRate(), 1);
+    }
+
+    @Test
+    public void mechanismsSharingAPeriodAreStaggered() {
+        CountingMechanism[] mechanisms = new CountingMechanism[4];
+        for (int i = 0; i < mechanisms.length; i++) {
+            mechanisms[i] = add(0.1, 0);
+        }
+        scheduler.setMaxDeferrablePerCycle(4);
+
+        run(1);
+
+        ArrayList<Long> times = new ArrayList<>();
+        for (CountingMechanism mechanism : mechanisms) {
+            assertEquals(10, mechanism.runs.size());
+            for (long time : mechanism.runs) {
+                assertFalse("two mechanisms ran in the same cycle", times.contains(time));
+                times.add(time);
+            }
+        }
+    }
+
+    @Test
+    public void higherPriorityRunsFirstWhenLimited() {
+        CountingMechanism low = add(0.05, 0);
+        CountingMechanism high = add(0.05, 1);
+        scheduler.setMaxDeferrablePerCycle(1);
+
+        // both become due on the same cycle after a long stall
+        scheduler.loop(null);
+        clock.advanceSeconds(0.05);
+        int lowRuns = low.runs.size();
+        int highRuns = high.runs.size();
+        scheduler.loop(null);
+
+        assertEquals(highRuns + 1, high.runs.size());
+        assertEquals(lowRuns, low.runs.size());
+        assertTrue(scheduler.getEntries().get(1).getDeferrals() > 0);
+    }
+
+    @Test
+    public void overdueMechanismsAreNotStarved() {
+        CountingMechanism[] mechanisms = new CountingMechanism[8];
+        for (int i = 0; i < mechanisms.length; i++) {
+            mechanisms[i] = add(0.02, i);
+        }
+        scheduler.setMaxDeferrablePerCycle(1);
+
+        run(2);
+
+        long bound = (long) ((2 * 0.02 + LOOP) * 1e9) + 1;
+        for (CountingMechanism mechanism : mechanisms) {
+            assertTrue("mechanism ran " + mechanism.runs.size() + " times", mechanism.runs.size() >= 40);
+            assertTrue("mechanism waited " + mechanism.maxInterval() * 1e-9 + " s",
+                    mechanism.maxInterval() <= bound);
+        }
+    }
+
+    @Test
+    public void minPriorityDefersLowPriorityMechanisms() {
+        CountingMechanism low = add(0.05, 0);
+        CountingMechanism high = add(0.05, 2);
+        CountingMechanism everyCycle = add(0, -1);
+        scheduler.setMaxDeferrablePerCycle(2);
+
+        scheduler.setMinPriority(1);
+        run(1);
+        assertEquals(0, low.runs.size());
+        assertEquals(20, high.runs.size());
+        assertEquals(100, everyCycle.runs.size());
+
+        scheduler.setMinPriority(Integer.MIN_VALUE);
+        run(1);
+        assertTrue(low.runs.size() >= 19);
+    }
+
+    @Test
+    public void instrumentedMechanismsKeepTheirRateAndPriority() {
+        CountingMechanism slow = new CountingMechanism(clock, 0.1, 2);
+        InstrumentedMechanism instrumented = new MechanismProfiler().instrument(slow);
+        scheduler.register(instrumented);
+
+        MechanismScheduler.Entry entry = scheduler.getEntries().get(0);
+        assertEquals(2, entry.getPriority());
+        assertEquals(10, entry.getTargetRate(), 1e-9);
+        assertEquals("CountingMechanism", InstrumentedMechanism.nameOf(instrumented));
+
+        run(1);
+        assertEquals(10, slow.runs.size());
+    }
+
+}
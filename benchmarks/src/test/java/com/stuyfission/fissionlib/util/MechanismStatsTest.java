@@ -0,0 +1,59 @@
+package com.stuyfission.fissionlib.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.junit.Test;
+
+public class MechanismStatsTest {
+
+    private static final int CALLS = 200;
+
+    /**
+     * Makes hub calls spread over its init, so parallel inits interleave
+     */
+    private static class BusyMechanism extends Mechanism {
+        @Override
+        public void init(HardwareMap hwMap) {
+            for (int i = 0; i < CALLS; i++) {
+                MechanismStats.recordHardwareCall();
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public void loop(Gamepad gamepad) {
+            MechanismStats.recordHardwareCall();
+        }
+    }
+
+    @Test
+    public void parallelInitChargesEachMechanism() {
+        MechanismProfiler profiler = new MechanismProfiler();
+        RobotContainer robot = new RobotContainer(4);
+        InstrumentedMechanism[] mechanisms = new InstrumentedMechanism[8];
+        for (int i = 0; i < mechanisms.length; i++) {
+            mechanisms[i] = profiler.instrument(new BusyMechanism());
+            robot.add(mechanisms[i]);
+        }
+
+        robot.init(null);
+
+        for (InstrumentedMechanism mechanism : mechanisms) {
+            assertEquals(CALLS, mechanism.getStats().getHardwareCalls());
+        }
+    }
+
+    @Test
+    public void callsOutsideInstrumentedCodeAreNotCharged() {
+        InstrumentedMechanism mechanism = new InstrumentedMechanism(new BusyMechanism());
+        mechanism.loop((Gamepad) null);
+        MechanismStats.recordHardwareCall();
+
+        assertEquals(1, mechanism.getStats().getHardwareCalls());
+        assertEquals(1, mechanism.getStats().getLoop().getCount());
+    }
+
+}